@@ -0,0 +1,68 @@
+package com.biopeakai.performance;
+
+import java.io.File;
+
+/**
+ * One playable audio segment: an in-memory buffer, a file (e.g. a TTS cache entry), a remote URL, or text
+ * to be spoken by the on-device {@link LocalSpeech} engine.
+ * A clip backed by a buffer owns one reference to it; call {@link #release()} if it is not handed to a player.
+ */
+public final class AudioClip {
+    private final AudioBuffer buffer;
+    private final File file;
+    private final String url;
+    private final String speechText;
+
+    private AudioClip(AudioBuffer buffer, File file, String url, String speechText) {
+        this.buffer = buffer;
+        this.file = file;
+        this.url = url;
+        this.speechText = speechText;
+    }
+
+    public static AudioClip of(AudioBuffer buffer) {
+        return new AudioClip(buffer, null, null, null);
+    }
+
+    public static AudioClip of(File file) {
+        return new AudioClip(null, file, null, null);
+    }
+
+    public static AudioClip ofUrl(String url) {
+        return new AudioClip(null, null, url, null);
+    }
+
+    public static AudioClip ofSpeech(String text) {
+        return new AudioClip(null, null, null, text);
+    }
+
+    public AudioBuffer getBuffer() {
+        return buffer;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getSpeechText() {
+        return speechText;
+    }
+
+    public void release() {
+        if (buffer != null) {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (buffer != null) return "memory(" + buffer.length() + " bytes)";
+        if (file != null) return file.getName();
+        if (speechText != null) return "local(\"" + speechText + "\")";
+        return url;
+    }
+}
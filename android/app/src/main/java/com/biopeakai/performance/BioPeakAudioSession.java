@@ -16,16 +16,12 @@ import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-
 @CapacitorPlugin(name = "BioPeakAudioSession")
 public class BioPeakAudioSession extends Plugin {
     private static final String TAG = "BioPeakAudioSession";
     private AudioManager audioManager;
     private MediaPlayer silentPlayer;
-    private MediaPlayer feedbackPlayer;
+    private SequentialAudioPlayer feedbackPlayer;
     private AudioFocusRequest audioFocusRequest;
     private boolean isAudioSessionActive = false;
 
@@ -33,6 +29,7 @@ public class BioPeakAudioSession extends Plugin {
     public void load() {
         super.load();
         audioManager = (AudioManager) getContext().getSystemService(Context.AUDIO_SERVICE);
+        feedbackPlayer = new SequentialAudioPlayer(getContext());
         Log.d(TAG, "✅ BioPeakAudioSession plugin loaded");
     }
 
@@ -136,45 +133,20 @@ public class BioPeakAudioSession extends Plugin {
         try {
             Log.d(TAG, "🎵 Playing audio file...");
             
-            // Stop any current feedback
-            stopFeedbackPlayer();
-            
-            feedbackPlayer = new MediaPlayer();
-            
+            AudioClip clip;
             if (url.startsWith("data:audio")) {
-                // Handle Data URL (base64)
-                playDataUrl(url);
+                // Handle Data URL (base64), decoded straight into memory
+                clip = decodeDataUrl(url);
             } else if (url.startsWith("http://") || url.startsWith("https://")) {
                 // Handle HTTP URL
-                feedbackPlayer.setDataSource(url);
+                clip = AudioClip.ofUrl(url);
             } else {
                 call.reject("Unsupported URL format");
                 return;
             }
             
-            feedbackPlayer.setAudioAttributes(
-                new AudioAttributes.Builder()
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
-                    .setUsage(AudioAttributes.USAGE_MEDIA)
-                    .build()
-            );
-            
-            feedbackPlayer.setOnCompletionListener(mp -> {
-                Log.d(TAG, "✅ Audio playback completed");
-                stopFeedbackPlayer();
-            });
-            
-            feedbackPlayer.setOnErrorListener((mp, what, extra) -> {
-                Log.e(TAG, "❌ Audio playback error: " + what + ", " + extra);
-                stopFeedbackPlayer();
-                return false;
-            });
-            
-            feedbackPlayer.prepareAsync();
-            feedbackPlayer.setOnPreparedListener(mp -> {
-                mp.start();
-                Log.d(TAG, "▶️ Audio playback started");
-            });
+            // Replaces any current feedback
+            feedbackPlayer.play(clip, () -> Log.d(TAG, "✅ Audio playback completed"));
             
             JSObject result = new JSObject();
             result.put("success", true);
@@ -285,16 +257,8 @@ public class BioPeakAudioSession extends Plugin {
 
     private void stopFeedbackPlayer() {
         if (feedbackPlayer != null) {
-            try {
-                if (feedbackPlayer.isPlaying()) {
-                    feedbackPlayer.stop();
-                }
-                feedbackPlayer.release();
-                feedbackPlayer = null;
-                Log.d(TAG, "✅ Feedback player stopped");
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Error stopping feedback: " + e.getMessage(), e);
-            }
+            feedbackPlayer.stop();
+            Log.d(TAG, "✅ Feedback player stopped");
         }
     }
 
@@ -302,7 +266,7 @@ public class BioPeakAudioSession extends Plugin {
         if (silentPlayer != null && silentPlayer.isPlaying()) {
             silentPlayer.pause();
         }
-        if (feedbackPlayer != null && feedbackPlayer.isPlaying()) {
+        if (feedbackPlayer != null) {
             feedbackPlayer.pause();
         }
     }
@@ -311,30 +275,15 @@ public class BioPeakAudioSession extends Plugin {
         if (silentPlayer != null && !silentPlayer.isPlaying()) {
             silentPlayer.start();
         }
-        if (feedbackPlayer != null && !feedbackPlayer.isPlaying()) {
-            feedbackPlayer.start();
+        if (feedbackPlayer != null) {
+            feedbackPlayer.resume();
         }
     }
 
-    private void playDataUrl(String dataUrl) throws IOException {
+    private AudioClip decodeDataUrl(String dataUrl) {
         // Extract base64 data from Data URL
         String base64Data = dataUrl.substring(dataUrl.indexOf(",") + 1);
-        byte[] audioData = Base64.decode(base64Data, Base64.DEFAULT);
-        
-        // Save to temporary file
-        File tempFile = File.createTempFile("feedback_audio", ".mp3", getContext().getCacheDir());
-        FileOutputStream fos = new FileOutputStream(tempFile);
-        fos.write(audioData);
-        fos.close();
-        
-        // Set data source
-        feedbackPlayer.setDataSource(tempFile.getAbsolutePath());
-        
-        // Delete temp file when done
-        feedbackPlayer.setOnCompletionListener(mp -> {
-            tempFile.delete();
-            stopFeedbackPlayer();
-        });
+        return AudioClip.of(AudioBuffer.wrap(Base64.decode(base64Data, Base64.DEFAULT)));
     }
 
     @Override
@@ -1,24 +1,30 @@
 package com.biopeakai.performance;
 
 import android.Manifest;
-import android.app.Notification;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
+import android.app.AlarmManager;
 import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
 import android.location.Location;
-import android.media.AudioAttributes;
-import android.media.MediaPlayer;
-import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
-import android.util.Base64;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
-import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
 
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
@@ -30,10 +36,9 @@ import com.google.android.gms.location.Priority;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.util.Random;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import okhttp3.MediaType;
@@ -41,26 +46,84 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 public class BioPeakLocationService extends Service {
     private static final String TAG = "BP/LocationService";
-    private static final int NOTIFICATION_ID = 1001;
-    private static final String CHANNEL_ID = "biopeak_gps_tracking";
     
     public static final String ACTION_START = "com.biopeakai.START_TRACKING";
     public static final String ACTION_STOP = "com.biopeakai.STOP_TRACKING";
+    public static final String ACTION_LAP = "com.biopeakai.MARK_LAP";
     public static final String BROADCAST_LOCATION_UPDATE = "com.biopeakai.LOCATION_UPDATE";
+    public static final String BROADCAST_SPLIT = "com.biopeakai.SPLIT";
+    
+    
+    private static final String JOURNAL_FILE_NAME = "track_journal.bin";
+    // A journal older than this is a leftover, not a run the system just interrupted
+    private static final long MAX_RESUME_GAP_MS = 2 * 60 * 60 * 1000L;
+    // Minimum spacing between two spoken cues
+    private static final long MIN_FEEDBACK_INTERVAL_MS = 2000;
+    private static final String CUE_ALARM_TAG = "BP/CueTimer";
+    // Longest a cue may hold the cue lane while it plays
+    private static final long CUE_PLAYBACK_TIMEOUT_MS = 30_000;
+    private static final double SPLIT_METERS = 1000.0;
+    // Altitude changes slowly: one pressure reading a second, delivered in hardware batches
+    private static final int PRESSURE_PERIOD_US = 1_000_000;
+    private static final int PRESSURE_MAX_LATENCY_US = 5_000_000;
     
     private FusedLocationProviderClient fusedLocationClient;
     private LocationCallback locationCallback;
-    private Location lastLocation;
-    private double accumulatedDistance = 0.0;
+    private Handler mainHandler;
+    
+    // Location pipeline thread - owns all per-fix state below, never touch it from other threads
+    private HandlerThread locationThread;
+    private Handler locationHandler;
+    private final TrackingCore trackingCore = new TrackingCore(new KalmanLocationFilter());
+    private final CueScheduler cueScheduler = new CueScheduler(MIN_FEEDBACK_INTERVAL_MS);
+    private Workout workout = new Workout();
+    private int milestoneSegment;
+    private final LocationData fixData = new LocationData();
+    private final LocationChannel locationChannel = LocationChannel.getInstance();
+    private TrackJournal trackJournal;
+    private final SamplingController samplingController = new SamplingController();
+    private final SplitTracker splitTracker = new SplitTracker(SPLIT_METERS);
+    private final ElevationTracker elevationTracker = new ElevationTracker();
+    private SensorManager sensorManager;
+    private SensorEventListener pressureListener;
+    
+    // Time cues run on elapsed realtime, which keeps counting in deep sleep and ignores wall-clock changes.
+    // The handler fires while the CPU is awake; the alarm wakes it when nothing else does.
+    private long sessionClockBase;
+    private AlarmManager alarmManager;
+    private AlarmManager.OnAlarmListener cueAlarm;
+    private final Runnable cueTimer = this::onCueTimer;
+    // Stop cancels the timer from the main thread while the pipeline may be re-arming it; both sides hold the lock.
+    // The handler is kept after onDestroy clears locationHandler, so a tick drained by quitSafely finds it.
+    private final Object cueTimerLock = new Object();
+    private Handler cueHandler;
+    private boolean cueTimerStopped = true;
+    private long armedCueDue = Long.MAX_VALUE;
+    
+    // Acted on once per LocationResult, after every fix in it went through the pipeline. One slot for all cues;
+    // the milestone fields only apply when the pending cue is a milestone.
+    private int pendingCue = CueScheduler.CUE_NONE;
+    private int pendingCueArg;
+    private int pendingCueMeters;
+    private int pendingMilestoneElapsedSeconds;
+    private double pendingMilestonePace;
+    private boolean pendingRequestChange = false;
+    private boolean batchMoved = false;
+    
+    // With the screen off nobody watches live updates: let the FLP hold fixes and deliver them in batches
+    private volatile boolean screenOff = false;
+    private BroadcastReceiver screenReceiver;
     
-    // Feedback control
-    private int lastFeedbackSegment = 0;
-    private long lastFeedbackAt = 0;
     private String sessionId;
     private String trainingGoal;
+    private double targetDistance;
+    private double targetPace;
+    private long targetDuration;
+    private int timeCueSeconds;
     private boolean shouldGiveFeedback = false;
     private Long sessionStartTime;
     
@@ -69,11 +132,16 @@ public class BioPeakLocationService extends Service {
     private String supabaseAnonKey;
     private String userToken;
     
-    private ExecutorService executorService;
+    private TaskScheduler scheduler;
+    private TrackingNotification notification;
     private OkHttpClient httpClient;
+    private SnapshotOutbox snapshotOutbox;
+    private TtsAudioCache ttsCache;
+    private SpeechEngine speechEngine;
+    private final CoachingMessages messages = CoachingMessages.getInstance();
     
     // Audio playback
-    private MediaPlayer feedbackMediaPlayer;
+    private SequentialAudioPlayer cuePlayer;
     
     @Override
     public void onCreate() {
@@ -81,18 +149,36 @@ public class BioPeakLocationService extends Service {
         Log.d(TAG, "🚀 Service onCreate()");
         
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
-        executorService = Executors.newCachedThreadPool();
-        httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
+        
+        // GPS fixes are processed here instead of on the main looper so the WebView never waits on us
+        locationThread = new HandlerThread("BP-LocationPipeline", Process.THREAD_PRIORITY_FOREGROUND);
+        locationThread.start();
+        locationHandler = new Handler(locationThread.getLooper());
+        cueHandler = locationHandler;
+        mainHandler = new Handler(Looper.getMainLooper());
+        
+        trackJournal = new TrackJournal(new File(getFilesDir(), JOURNAL_FILE_NAME));
+        notification = new TrackingNotification(this);
+        snapshotOutbox = SnapshotOutbox.getInstance(this);
+        ttsCache = TtsAudioCache.getInstance(this);
+        cuePlayer = new SequentialAudioPlayer(this);
+        speechEngine = SpeechEngine.getInstance(this);
+        speechEngine.warmUp();
+        alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        
+        scheduler = TaskScheduler.getInstance();
+        httpClient = SupabaseHttp.client();
     }
     
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         if (intent == null) {
+            // Restarted by the system after being killed (START_STICKY): resume the run from the journal
+            if (resumeFromJournal()) {
+                return START_STICKY;
+            }
             Log.e(TAG, "❌ Service started with null intent");
+            stopSelf();
             return START_NOT_STICKY;
         }
         
@@ -103,11 +189,18 @@ public class BioPeakLocationService extends Service {
             // Extract configuration from intent
             sessionId = intent.getStringExtra("sessionId");
             trainingGoal = intent.getStringExtra("trainingGoal");
+            targetDistance = intent.getDoubleExtra("targetDistance", 0.0);
+            targetPace = intent.getDoubleExtra("targetPace", 0.0);
+            targetDuration = intent.getLongExtra("targetDuration", 0L);
+            timeCueSeconds = intent.getIntExtra("timeCueSeconds", 0);
             shouldGiveFeedback = intent.getBooleanExtra("shouldGiveFeedback", true);
             supabaseUrl = intent.getStringExtra("supabaseUrl");
             supabaseAnonKey = intent.getStringExtra("supabaseAnonKey");
             userToken = intent.getStringExtra("userToken");
             double initialDistance = intent.getDoubleExtra("initialDistance", 0.0); // ✅ Receive initial distance
+            long initialMovingTime = intent.getLongExtra("initialMovingTime", 0L);
+            float initialElevationGain = intent.getFloatExtra("initialElevationGain", 0f);
+            float initialElevationLoss = intent.getFloatExtra("initialElevationLoss", 0f);
             
             Log.d(TAG, "📋 Configuration:");
             Log.d(TAG, "   → sessionId: " + sessionId);
@@ -115,12 +208,32 @@ public class BioPeakLocationService extends Service {
             Log.d(TAG, "   → feedback enabled: " + shouldGiveFeedback);
             Log.d(TAG, "   → initialDistance: " + initialDistance + "m");
             
+            sessionStartTime = System.currentTimeMillis();
+            workout = compileWorkout();
+            int intervalReps = intent.getIntExtra("intervalReps", 0);
+            if (intervalReps > 0) {
+                double workMeters = intent.getDoubleExtra("intervalWorkMeters", 0.0);
+                long workSeconds = intent.getLongExtra("intervalWorkSeconds", 0L);
+                long restMs = intent.getLongExtra("intervalRestSeconds", 0L) * 1000;
+                if (workMeters > 0) {
+                    workout.intervals(intervalReps, Workout.AXIS_DISTANCE, workMeters, restMs);
+                } else if (workSeconds > 0) {
+                    workout.intervals(intervalReps, Workout.AXIS_TIME, workSeconds * 1000.0, restMs);
+                }
+            }
+            
             // Start foreground service
-            createNotificationChannel();
-            startForeground(NOTIFICATION_ID, createNotification());
+            notification.createChannel();
+            startForeground(TrackingNotification.NOTIFICATION_ID, notification.start(sessionStartTime, initialDistance));
             
             // Start GPS tracking with initial distance
-            startLocationTracking(initialDistance);
+            startLocationTracking(initialDistance, (int) (initialDistance / 500.0), initialMovingTime,
+                    initialElevationGain, initialElevationLoss, false);
+            
+        } else if (ACTION_LAP.equals(action)) {
+            if (locationHandler != null) {
+                locationHandler.post(this::markLap);
+            }
             
         } else if (ACTION_STOP.equals(action)) {
             stopLocationTracking();
@@ -131,8 +244,66 @@ public class BioPeakLocationService extends Service {
         return START_STICKY; // Service will be recreated if killed by system
     }
     
-    private void startLocationTracking(double initialDistance) {
+    private boolean resumeFromJournal() {
+        TrackJournal.Recovered recovered;
+        try {
+            recovered = trackJournal.recover();
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Journal recovery failed: " + e.getMessage(), e);
+            trackJournal.delete();
+            return false;
+        }
+        
+        if (recovered == null) {
+            return false;
+        }
+        
+        TrackJournal.Config config = recovered.config;
+        long lastActivity = recovered.fixCount > 0 ? recovered.lastTimestamp : config.sessionStartTime;
+        if (System.currentTimeMillis() - lastActivity > MAX_RESUME_GAP_MS) {
+            Log.w(TAG, "⚠️ Journal for session " + config.sessionId + " is too old to resume - discarding");
+            trackJournal.delete();
+            return false;
+        }
+        
+        sessionId = config.sessionId;
+        trainingGoal = config.trainingGoal;
+        targetDistance = config.targetDistance;
+        targetPace = config.targetPace;
+        targetDuration = config.targetDuration;
+        timeCueSeconds = config.timeCueSeconds;
+        shouldGiveFeedback = config.shouldGiveFeedback;
+        supabaseUrl = config.supabaseUrl;
+        supabaseAnonKey = config.supabaseAnonKey;
+        userToken = config.userToken;
+        sessionStartTime = config.sessionStartTime;
+        // Interval reps are not resumed: where the runner was in a rep is not known after the restart
+        workout = compileWorkout();
+        
+        Log.d(TAG, "♻️ Resuming session " + sessionId + " from journal: " + recovered.fixCount + 
+              " fixes, " + recovered.totalDistance + "m, segment " + recovered.feedbackSegment);
+        TraceLog.record(TraceLog.JOURNAL_RESUME, recovered.fixCount, (float) recovered.totalDistance, 0f);
+        
+        notification.createChannel();
+        startForeground(TrackingNotification.NOTIFICATION_ID, notification.start(sessionStartTime, recovered.totalDistance));
+        startLocationTracking(recovered.totalDistance, recovered.feedbackSegment, recovered.movingTime,
+                recovered.elevationGain, recovered.elevationLoss, true);
+        return true;
+    }
+    
+    private void startLocationTracking(double initialDistance, int initialSegment, long initialMovingTime,
+                                       float initialElevationGain, float initialElevationLoss, boolean resumed) {
         Log.d(TAG, "🎯 Starting location tracking with initialDistance: " + initialDistance + "m");
+        TraceLog.record(TraceLog.SESSION_START, resumed ? 1 : 0, (float) initialDistance, 0f);
+        if (!resumed) {
+            PerformanceStats.reset();
+        }
+        
+        snapshotOutbox.setCredentials(supabaseUrl, supabaseAnonKey, userToken);
+        SupabaseHttp.preconnect(supabaseUrl);
+        
+        // Synthesize the upcoming milestone announcements before the runner gets there
+        presynthesizeMilestones(initialSegment + 1);
         
         // Check permissions
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) 
@@ -141,173 +312,548 @@ public class BioPeakLocationService extends Service {
             return;
         }
         
-        // Initialize state with provided initial distance (preserves accumulated distance)
-        accumulatedDistance = initialDistance;
-        lastLocation = null;
-        sessionStartTime = System.currentTimeMillis();
-        
-        // Calculate which feedback segment we should be at based on initial distance
-        lastFeedbackSegment = (int) (initialDistance / 500.0);
-        
-        // Configure location request
-        LocationRequest locationRequest = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, 3000)
-            .setMinUpdateDistanceMeters(5.0f)
-            .setMinUpdateIntervalMillis(3000)
-            .setMaxUpdateDelayMillis(5000)
-            .build();
+        TrackJournal.Config journalConfig = resumed ? null
+                : buildJournalConfig(initialDistance, initialMovingTime, initialElevationGain, initialElevationLoss);
+        
+        // Initialize state on the pipeline thread with provided initial distance (preserves accumulated distance)
+        locationHandler.post(() -> {
+            trackingCore.reset(initialDistance, initialMovingTime);
+            milestoneSegment = initialSegment;
+            // The session clock continues from the journal, or from the moving time carried across a plugin
+            // stop/start; a fresh session starts it at 0 so interval reps begin right away
+            long carriedMs = resumed ? System.currentTimeMillis() - sessionStartTime
+                    : initialDistance > 0 ? initialMovingTime : 0;
+            sessionClockBase = SystemClock.elapsedRealtime() - carriedMs;
+            cueScheduler.load(shouldGiveFeedback ? workout : new Workout(), initialDistance, carriedMs);
+            synchronized (cueTimerLock) {
+                cueTimerStopped = false;
+            }
+            armCueTimer();
+            samplingController.reset(System.currentTimeMillis());
+            splitTracker.reset(initialDistance, initialMovingTime);
+            elevationTracker.reset(initialElevationGain, initialElevationLoss);
+            
+            if (journalConfig != null) {
+                try {
+                    trackJournal.start(journalConfig);
+                } catch (IOException e) {
+                    Log.e(TAG, "❌ Could not start track journal: " + e.getMessage(), e);
+                }
+            }
+        });
         
         locationCallback = new LocationCallback() {
             @Override
             public void onLocationResult(LocationResult locationResult) {
                 if (locationResult == null) return;
+                List<Location> locations = locationResult.getLocations();
+                if (locations.isEmpty()) return;
+                
+                // Batched fixes are old by design; only the newest tells how late the callback came
+                Location newest = locations.get(locations.size() - 1);
+                PerformanceStats.recordNanos(PerformanceStats.FIX_TO_CALLBACK,
+                        SystemClock.elapsedRealtimeNanos() - newest.getElapsedRealtimeNanos());
                 
-                for (Location location : locationResult.getLocations()) {
-                    handleLocationUpdate(location);
+                for (int i = 0; i < locations.size(); i++) {
+                    handleLocationUpdate(locations.get(i));
                 }
+                finishBatch(locations.size());
             }
         };
         
-        fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, Looper.getMainLooper());
+        registerScreenReceiver();
+        registerPressureListener();
         
-        Log.d(TAG, "✅ Location tracking started in Foreground Service");
+        // Sessions start at the regular rate; the sampling controller adapts it from the fixes
+        fusedLocationClient.requestLocationUpdates(buildLocationRequest(SamplingController.NORMAL),
+                locationCallback, locationThread.getLooper());
+        
+        Log.d(TAG, "✅ Location tracking started in Foreground Service (pipeline thread: " + locationThread.getName() + ")");
+    }
+    
+    private LocationRequest buildLocationRequest(int profile) {
+        long intervalMs = SamplingController.intervalMs(profile);
+        return new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, intervalMs)
+            .setMinUpdateDistanceMeters(SamplingController.minDistanceMeters(profile))
+            .setMinUpdateIntervalMillis(intervalMs)
+            .setMaxUpdateDelayMillis(SamplingController.maxDelayMs(profile, screenOff))
+            .build();
+    }
+    
+    private TrackJournal.Config buildJournalConfig(double initialDistance, long initialMovingTime,
+                                                   float initialElevationGain, float initialElevationLoss) {
+        TrackJournal.Config config = new TrackJournal.Config();
+        config.sessionId = sessionId;
+        config.trainingGoal = trainingGoal;
+        config.targetDistance = targetDistance;
+        config.targetPace = targetPace;
+        config.targetDuration = targetDuration;
+        config.timeCueSeconds = timeCueSeconds;
+        config.shouldGiveFeedback = shouldGiveFeedback;
+        config.supabaseUrl = supabaseUrl;
+        config.supabaseAnonKey = supabaseAnonKey;
+        config.userToken = userToken;
+        config.sessionStartTime = sessionStartTime;
+        config.initialDistance = initialDistance;
+        config.initialMovingTime = initialMovingTime;
+        config.initialElevationGain = initialElevationGain;
+        config.initialElevationLoss = initialElevationLoss;
+        return config;
     }
     
     private void stopLocationTracking() {
         Log.d(TAG, "⏹️ Stopping location tracking...");
         
+        unregisterScreenReceiver();
+        unregisterPressureListener();
+        // Synchronously: onDestroy may quit the pipeline looper before a posted cancel would run
+        stopCueTimer();
+        
         if (fusedLocationClient != null && locationCallback != null) {
             fusedLocationClient.removeLocationUpdates(locationCallback);
+            locationCallback = null;
+            
+            locationHandler.post(() -> {
+                double finalDistance = trackingCore.getTotalDistance();
+                TraceLog.record(TraceLog.SESSION_STOP, 0, (float) finalDistance, 0f);
+                Log.d(TAG, "✅ Location tracking stopped - Final distance: " + finalDistance + "m");
+            });
         }
-        
-        Log.d(TAG, "✅ Location tracking stopped - Final distance: " + accumulatedDistance + "m");
     }
     
+    // Runs on the location pipeline thread
     private void handleLocationUpdate(Location newLocation) {
-        // Filter by accuracy
-        if (newLocation.getAccuracy() <= 0 || newLocation.getAccuracy() > 20) {
-            Log.w(TAG, "⚠️ Low accuracy: " + newLocation.getAccuracy() + "m");
+        boolean firstFix = !trackingCore.hasFix();
+        
+        long filterStart = System.nanoTime();
+        boolean accepted = trackingCore.process(newLocation.getLatitude(), newLocation.getLongitude(),
+                newLocation.getAccuracy(), newLocation.getTime());
+        PerformanceStats.recordSince(PerformanceStats.FILTER, filterStart);
+        LocationFilter filter = trackingCore.getFilter();
+        if (!accepted) {
+            // Rejections can come every second indoors: trace them instead of logging
+            TraceLog.record(TraceLog.FIX_REJECTED, filter.getRejectReason(), 0f, newLocation.getAccuracy());
+            adaptSampling(newLocation, false);
             return;
         }
         
-        if (lastLocation != null) {
-            float distance = lastLocation.distanceTo(newLocation);
-            
-            // Filter GPS jumps and very small movements
-            if (distance >= 3.0f && distance < 100.0f && newLocation.getAccuracy() <= 15) {
-                accumulatedDistance += distance;
-                
-                Log.d(TAG, "📍 +" + String.format("%.1f", distance) + "m → Total: " + 
-                      String.format("%.1f", accumulatedDistance) + "m (accuracy: " + 
-                      String.format("%.1f", newLocation.getAccuracy()) + "m)");
-                
-                // Update notification with current distance
-                updateNotification();
-                
-                // Check 500m milestone
-                int currentSegment = (int) (accumulatedDistance / 500.0);
-                
-                if (shouldGiveFeedback && currentSegment > lastFeedbackSegment) {
-                    // Throttle: ensure 2s between feedbacks
-                    long now = System.currentTimeMillis();
-                    if (now - lastFeedbackAt >= 2000) {
-                        lastFeedbackAt = now;
-                        lastFeedbackSegment = currentSegment;
-                        int meters = currentSegment * 500;
-                        Log.d(TAG, "🎯 " + meters + "m milestone reached - TRIGGERING FEEDBACK");
-                        
-                        // Generate and play feedback
-                        generateAndPlayFeedback(meters);
-                    }
-                }
-                
-                // Send broadcast to plugin
-                sendLocationBroadcast(newLocation, distance);
-                
-            } else if (distance >= 100) {
-                Log.w(TAG, "⚠️ GPS jump detected: " + String.format("%.1f", distance) + "m - ignored");
-            }
-        } else {
+        if (newLocation.hasAltitude()) {
+            float verticalAccuracy = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && newLocation.hasVerticalAccuracy()
+                    ? newLocation.getVerticalAccuracyMeters() : Float.NaN;
+            elevationTracker.onGpsAltitude(newLocation.getElapsedRealtimeNanos() / 1_000_000,
+                    newLocation.getAltitude(), verticalAccuracy);
+        }
+        double altitude = elevationTracker.getAltitude();
+        
+        double distance = trackingCore.getDistanceIncrement();
+        if (trackingCore.hasPauseChanged()) {
+            boolean paused = trackingCore.isPaused();
+            long movingSeconds = trackingCore.getMovingTimeMs() / 1000;
+            Log.d(TAG, (paused ? "⏸️ Auto-paused" : "▶️ Auto-resumed") + " - moving time " + movingSeconds + "s");
+            TraceLog.record(TraceLog.AUTO_PAUSE, paused ? 1 : 0, movingSeconds, (float) trackingCore.getTotalDistance());
+        }
+        if (firstFix) {
             Log.d(TAG, "📍 First location acquired");
+        } else if (distance > 0) {
+            batchMoved = true;
         }
         
-        lastLocation = newLocation;
+        // Only the next trigger of each axis is looked at; time triggers also fire from the cue timer
+        long fixSessionMs = newLocation.getElapsedRealtimeNanos() / 1_000_000 - sessionClockBase;
+        if (cueScheduler.onFix(trackingCore.getTotalDistance(), fixSessionMs, trackingCore.getCurrentPace(),
+                trackingCore.isPaused())) {
+            takeCue(fixSessionMs);
+        }
+        recordMilestones(newLocation, fixSessionMs, altitude);
+        
+        // Position and speed come from the filter, altitude from the elevation tracker, the rest from the raw fix
+        fixData.latitude = filter.getLatitude();
+        fixData.longitude = filter.getLongitude();
+        fixData.accuracy = newLocation.getAccuracy();
+        fixData.altitude = Double.isNaN(altitude) ? newLocation.getAltitude() : altitude;
+        fixData.speed = (float) filter.getSpeed();
+        fixData.heading = newLocation.getBearing();
+        fixData.distanceIncrement = (float) distance;
+        fixData.totalDistance = trackingCore.getTotalDistance();
+        fixData.timestamp = newLocation.getTime();
+        fixData.movingTime = trackingCore.getMovingTimeMs();
+        fixData.currentPace = (float) trackingCore.getCurrentPace();
+        fixData.averagePace = sessionStartTime != null
+                ? Pace.secondsPerKm(newLocation.getTime() - sessionStartTime, fixData.totalDistance) : 0;
+        fixData.movingPace = trackingCore.getMovingPace();
+        fixData.elevationGain = (float) elevationTracker.getGain();
+        fixData.elevationLoss = (float) elevationTracker.getLoss();
+        TraceLog.record(TraceLog.FIX_ACCEPTED, 0, fixData.distanceIncrement, fixData.accuracy);
+        
+        // Every accepted fix goes to the journal so a killed service can pick the run back up
+        try {
+            trackJournal.append(fixData, milestoneSegment);
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Journal write failed: " + e.getMessage());
+        }
+        
+        if (distance > 0) {
+            publishLocation();
+        }
+        
+        // Boundaries are interpolated between this fix and the previous one
+        int completed = splitTracker.onFix(fixData.totalDistance, fixData.movingTime, altitude);
+        List<SplitTracker.Split> splits = splitTracker.getRecords();
+        for (int i = splits.size() - completed; i < splits.size(); i++) {
+            publishSplit(splits.get(i));
+        }
+        adaptSampling(newLocation, true);
+        armCueTimer();
     }
     
-    private void sendLocationBroadcast(Location location, float distanceIncrement) {
-        Intent intent = new Intent(BROADCAST_LOCATION_UPDATE);
-        intent.setPackage(getPackageName()); // ✅ Make broadcast explicit for Android 14+
+    // Runs on the location pipeline thread: every milestone crossed gets its snapshot, whichever cue is spoken
+    private void recordMilestones(Location location, long sessionMs, double altitude) {
+        int count = cueScheduler.getMilestonesCrossed();
+        if (count == 0) return;
+        double pace = announcedPace() / 60.0;
+        for (int i = 0; i < count; i++) {
+            int meters = cueScheduler.getMilestoneCrossed(i);
+            Log.d(TAG, "🎯 " + meters + "m milestone reached");
+            TraceLog.record(TraceLog.MILESTONE, meters);
+            milestoneSegment = Math.max(milestoneSegment, meters / CoachingScript.MILESTONE_METERS);
+            saveSnapshotToSupabase(meters, (int) (sessionMs / 1000), pace > 0 ? pace : null, location, altitude,
+                    elevationTracker.getGain(), elevationTracker.getLoss());
+        }
+    }
+    
+    // Runs on the location pipeline thread: queues the cue the scheduler just reported for the end of the batch
+    private void takeCue(long sessionMs) {
+        int cue = cueScheduler.getCue();
+        int arg = cueScheduler.getCueArg();
+        if (cue == CueScheduler.CUE_MILESTONE) {
+            Log.d(TAG, "🎯 " + arg + "m milestone - TRIGGERING FEEDBACK");
+        } else {
+            Log.d(TAG, "📣 Cue " + cue + " (" + arg + ") at " + sessionMs / 1000 + "s");
+            TraceLog.record(TraceLog.CUE, cue, arg, (float) trackingCore.getTotalDistance());
+        }
         
-        LocationData data = new LocationData();
-        data.latitude = location.getLatitude();
-        data.longitude = location.getLongitude();
-        data.accuracy = location.getAccuracy();
-        data.altitude = location.getAltitude();
-        data.speed = location.getSpeed();
-        data.heading = location.getBearing();
-        data.distanceIncrement = distanceIncrement;
-        data.totalDistance = accumulatedDistance;
-        data.timestamp = location.getTime();
-        
-        intent.putExtra("locationData", data);
-        sendBroadcast(intent);
+        // Several cues inside one batch collapse like the scheduler's own: the most important, then the latest
+        if (pendingCue != CueScheduler.CUE_NONE && CueScheduler.priority(cue) < CueScheduler.priority(pendingCue)) {
+            return;
+        }
+        pendingCue = cue;
+        pendingCueArg = arg;
+        pendingCueMeters = (int) trackingCore.getTotalDistance();
+        if (cue == CueScheduler.CUE_MILESTONE) {
+            // Announced once the batch is through, with the time and pace of the fix that crossed it
+            pendingMilestoneElapsedSeconds = (int) (sessionMs / 1000);
+            pendingMilestonePace = announcedPace() / 60.0;
+        }
+    }
+    
+    // Runs on the location pipeline thread
+    private void markLap() {
+        SplitTracker.Split lap = splitTracker.lap();
+        if (lap == null) {
+            Log.d(TAG, "⏱️ Lap ignored - no distance since the last one");
+            return;
+        }
+        publishSplit(lap);
+    }
+    
+    // Runs on the location pipeline thread
+    private void adaptSampling(Location location, boolean accepted) {
+        double speed = accepted ? trackingCore.getFilter().getSpeed() : 0;
+        if (!samplingController.onFix(location.getTime(), accepted, speed, location.getAccuracy(),
+                trackingCore.isPaused())) {
+            return;
+        }
         
-        Log.d(TAG, "📤 Broadcast sent: +" + String.format("%.1f", distanceIncrement) + "m → Total: " + String.format("%.1f", accumulatedDistance) + "m");
+        int profile = samplingController.getProfile();
+        Log.d(TAG, "🛰️ Sampling profile → " + SamplingController.profileName(profile)
+                + " (" + SamplingController.intervalMs(profile) + "ms, speed " + (float) samplingController.getSpeed()
+                + " m/s, accuracy " + (float) samplingController.getAccuracy() + "m)");
+        TraceLog.record(TraceLog.SAMPLING_PROFILE, profile,
+                (float) samplingController.getSpeed(), (float) samplingController.getAccuracy());
+        pendingRequestChange = true;
     }
     
-    // MARK: - Notification Management
+    // Runs on the location pipeline thread, once per LocationResult
+    private void finishBatch(int size) {
+        if (size > 1) {
+            Log.d(TAG, "📦 Processed a batch of " + size + " fixes");
+        }
+        if (batchMoved) {
+            batchMoved = false;
+            updateNotification();
+        }
+        playPendingCues();
+        if (pendingRequestChange) {
+            pendingRequestChange = false;
+            reissueLocationRequest();
+        }
+    }
+    
+    // Runs on the location pipeline thread
+    private void playPendingCues() {
+        if (pendingCue == CueScheduler.CUE_NONE) return;
+        boolean accepted = pendingCue == CueScheduler.CUE_MILESTONE
+                ? generateAndPlayFeedback(pendingCueArg, pendingMilestoneElapsedSeconds, pendingMilestonePace)
+                : speakCue(cueText(pendingCue, pendingCueArg, pendingCueMeters));
+        if (!accepted) {
+            Log.w(TAG, "⚠️ Cue lane full - cue " + pendingCue + " (" + pendingCueArg + ") dropped");
+            TraceLog.record(TraceLog.CUE_DROPPED, pendingCue, pendingCueArg, pendingCueMeters);
+        }
+        pendingCue = CueScheduler.CUE_NONE;
+    }
     
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                CHANNEL_ID,
-                "BioPeak GPS Tracking",
-                NotificationManager.IMPORTANCE_LOW
-            );
-            channel.setDescription("Rastreamento de localização durante treino");
-            channel.setShowBadge(false);
+    // MARK: - Cue Timer
+    
+    /** Session time in ms on the elapsed-realtime clock. */
+    private long sessionMs() {
+        return SystemClock.elapsedRealtime() - sessionClockBase;
+    }
+    
+    // Runs on the location pipeline thread
+    private void armCueTimer() {
+        long due = cueScheduler.nextTimeDue();
+        synchronized (cueTimerLock) {
+            if (cueTimerStopped || due == armedCueDue) return;
+            cancelCueTimerLocked();
+            if (due == Long.MAX_VALUE) return;
             
-            NotificationManager manager = getSystemService(NotificationManager.class);
-            if (manager != null) {
-                manager.createNotificationChannel(channel);
+            // Always aimed at the absolute due time, so a late tick does not push the next one back
+            armedCueDue = due;
+            long at = sessionClockBase + due;
+            cueHandler.postDelayed(cueTimer, Math.max(0, at - SystemClock.elapsedRealtime()));
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && alarmManager != null) {
+                if (cueAlarm == null) {
+                    cueAlarm = this::onCueTimer;
+                }
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+                    // Without the exact alarm permission the wake-up may come late; fixes still catch it up
+                    alarmManager.set(AlarmManager.ELAPSED_REALTIME_WAKEUP, at, CUE_ALARM_TAG, cueAlarm, cueHandler);
+                } else {
+                    alarmManager.setExact(AlarmManager.ELAPSED_REALTIME_WAKEUP, at, CUE_ALARM_TAG, cueAlarm, cueHandler);
+                }
             }
         }
     }
     
-    private Notification createNotification() {
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-            .setContentTitle("BioPeak Treino Ativo")
-            .setContentText("Rastreando: 0.0 km")
-            .setSmallIcon(android.R.drawable.ic_menu_mylocation)
-            .setPriority(NotificationCompat.PRIORITY_LOW)
-            .setOngoing(true)
-            .setShowWhen(false);
-        
-        return builder.build();
+    /** Cancels the timer and keeps it from being re-armed until the next session starts; any thread. */
+    private void stopCueTimer() {
+        synchronized (cueTimerLock) {
+            cueTimerStopped = true;
+            cancelCueTimerLocked();
+        }
     }
     
-    private void updateNotification() {
-        NotificationManager manager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
-        if (manager == null) return;
+    private void cancelCueTimerLocked() {
+        armedCueDue = Long.MAX_VALUE;
+        if (cueHandler != null) {
+            cueHandler.removeCallbacks(cueTimer);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && alarmManager != null && cueAlarm != null) {
+            alarmManager.cancel(cueAlarm);
+        }
+    }
+    
+    // Runs on the location pipeline thread, from the handler or the alarm, whichever comes first
+    private void onCueTimer() {
+        synchronized (cueTimerLock) {
+            if (cueTimerStopped) return;
+            cancelCueTimerLocked();
+        }
+        long now = sessionMs();
+        if (cueScheduler.onTime(now)) {
+            takeCue(now);
+            playPendingCues();
+        }
+        armCueTimer();
+    }
+    
+    // Runs on the location pipeline thread
+    private void reissueLocationRequest() {
+        LocationRequest request = buildLocationRequest(samplingController.getProfile());
+        // On the main thread, like start/stop, so a stop in between cannot be undone by a late re-request
+        mainHandler.post(() -> {
+            if (locationCallback == null) return;
+            fusedLocationClient.requestLocationUpdates(request, locationCallback, locationThread.getLooper());
+        });
+    }
+    
+    private void registerScreenReceiver() {
+        if (screenReceiver != null) return;
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        screenOff = powerManager != null && !powerManager.isInteractive();
         
-        double distanceKm = accumulatedDistance / 1000.0;
-        String text = String.format("Rastreando: %.2f km", distanceKm);
+        screenReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                boolean off = Intent.ACTION_SCREEN_OFF.equals(intent.getAction());
+                if (off == screenOff || locationCallback == null) return;
+                screenOff = off;
+                Log.d(TAG, off ? "🌙 Screen off - batching location fixes" : "☀️ Screen on - live location fixes");
+                
+                if (!off) {
+                    // Hand over what the FLP is holding so the runner sees the current state right away
+                    fusedLocationClient.flushLocations();
+                }
+                locationHandler.post(() -> reissueLocationRequest());
+            }
+        };
+        IntentFilter filter = new IntentFilter(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        ContextCompat.registerReceiver(this, screenReceiver, filter, ContextCompat.RECEIVER_NOT_EXPORTED);
+    }
+    
+    private void unregisterScreenReceiver() {
+        if (screenReceiver == null) return;
+        unregisterReceiver(screenReceiver);
+        screenReceiver = null;
+    }
+    
+    private void registerPressureListener() {
+        if (pressureListener != null) return;
+        sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
+        Sensor pressure = sensorManager != null ? sensorManager.getDefaultSensor(Sensor.TYPE_PRESSURE) : null;
+        if (pressure == null) {
+            Log.d(TAG, "⛰️ No barometer - elevation from GPS altitude only");
+            return;
+        }
         
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-            .setContentTitle("BioPeak Treino Ativo")
-            .setContentText(text)
-            .setSmallIcon(android.R.drawable.ic_menu_mylocation)
-            .setPriority(NotificationCompat.PRIORITY_LOW)
-            .setOngoing(true)
-            .setShowWhen(false);
+        // Delivered on the pipeline thread, like the fixes, so the elevation tracker needs no locking
+        pressureListener = new SensorEventListener() {
+            @Override
+            public void onSensorChanged(SensorEvent event) {
+                elevationTracker.onPressure(event.timestamp / 1_000_000, event.values[0]);
+            }
+            
+            @Override
+            public void onAccuracyChanged(Sensor sensor, int accuracy) {
+            }
+        };
+        sensorManager.registerListener(pressureListener, pressure, PRESSURE_PERIOD_US, PRESSURE_MAX_LATENCY_US,
+                locationHandler);
+        Log.d(TAG, "⛰️ Barometer registered for elevation");
+    }
+    
+    private void unregisterPressureListener() {
+        if (pressureListener == null) return;
+        sensorManager.unregisterListener(pressureListener);
+        pressureListener = null;
+    }
+    
+    private void publishLocation() {
+        // The plugin lives in this process: hand the fix over directly when it is listening
+        if (locationChannel.hasSubscriber()) {
+            locationChannel.publish(fixData);
+            return;
+        }
+        sendLocationBroadcast();
+    }
+    
+    private void sendLocationBroadcast() {
+        Intent intent = new Intent(BROADCAST_LOCATION_UPDATE);
+        intent.setPackage(getPackageName()); // ✅ Make broadcast explicit for Android 14+
         
-        manager.notify(NOTIFICATION_ID, builder.build());
+        // fixData is reused for the next fix, which is safe because sendBroadcast parcels it synchronously
+        intent.putExtra("locationData", fixData);
+        intent.putExtra("publishedAtNanos", System.nanoTime());
+        sendBroadcast(intent);
+    }
+    
+    private void publishSplit(SplitTracker.Split split) {
+        Log.d(TAG, "⏱️ " + SplitTracker.Split.kindName(split.kind) + " " + split.index + ": " + (int) split.distance
+                + "m in " + split.movingTime / 1000 + "s (" + split.pace + " s/km)");
+        TraceLog.record(TraceLog.SPLIT, split.kind, (float) split.distance, split.pace);
+        
+        // Once per kilometre or lap: a broadcast is cheap enough and reaches the plugin whatever the delivery mode
+        Intent intent = new Intent(BROADCAST_SPLIT);
+        intent.setPackage(getPackageName());
+        intent.putExtra("kind", SplitTracker.Split.kindName(split.kind));
+        intent.putExtra("index", split.index);
+        intent.putExtra("distance", split.distance);
+        intent.putExtra("movingTime", split.movingTime);
+        intent.putExtra("pace", split.pace);
+        intent.putExtra("elevationDelta", split.elevationDelta);
+        intent.putExtra("totalDistance", split.totalDistance);
+        sendBroadcast(intent);
+    }
+    
+    // MARK: - Notification Management
+    
+    private void updateNotification() {
+        double meters = trackingCore.getTotalDistance();
+        notification.update(meters, (int) announcedPace(), Pace.currentSplit(meters));
+    }
+    
+    /** Pace to show or speak, in seconds per km: the current pace, or the moving average until there is one. */
+    private double announcedPace() {
+        double current = trackingCore.getCurrentPace();
+        return current > 0 ? current : trackingCore.getMovingPace();
     }
     
     // MARK: - Feedback Generation
     
-    private void generateAndPlayFeedback(int meters) {
-        executorService.execute(() -> {
+    private Workout compileWorkout() {
+        Workout compiled = Workout.fromGoal(trainingGoal, CoachingScript.MILESTONE_METERS, targetDistance, targetPace,
+                targetDuration);
+        if (timeCueSeconds > 0) {
+            compiled.every(Workout.AXIS_TIME, timeCueSeconds * 1000.0, CueScheduler.CUE_TIME);
+        }
+        return compiled;
+    }
+    
+    private String cueText(int cue, int arg, int meters) {
+        switch (cue) {
+            case CueScheduler.CUE_TIME:
+                return messages.timeCue(arg, meters);
+            case CueScheduler.CUE_GOAL:
+                return messages.goalReached(Workout.GOAL_DISTANCE.equals(trainingGoal), arg);
+            case CueScheduler.CUE_INTERVAL_WORK:
+                return messages.intervalWork(arg, workout.getReps());
+            case CueScheduler.CUE_INTERVAL_REST:
+                return messages.intervalRest(arg, workout.getReps());
+            case CueScheduler.CUE_INTERVALS_DONE:
+                return messages.intervalsDone(arg);
+            default:
+                return messages.paceAlert(cue == CueScheduler.CUE_PACE_SLOW, arg);
+        }
+    }
+    
+    /** Returns false if the cue lane is full and the cue was dropped. */
+    private boolean speakCue(String text) {
+        return scheduler.execute(TaskScheduler.LANE_CUE, () -> {
+            Log.d(TAG, "💬 Cue: " + text);
+            // The deadline counts from when the cue lane is free, not from behind the cue before it
+            long cueStartMs = System.currentTimeMillis();
+            CountDownLatch played = new CountDownLatch(1);
+            try {
+                cuePlayer.begin(played::countDown);
+                try {
+                    cuePlayer.enqueue(speechEngine.resolve(text, cueStartMs, this::fetchTTSAudio));
+                } finally {
+                    cuePlayer.finish();
+                }
+                awaitCuePlayed(played);
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Cue error: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Holds the single cue-lane thread until the cue has played, so the next cue's begin() cannot cut it
+     * off or interleave with it.
+     */
+    private void awaitCuePlayed(CountDownLatch played) throws InterruptedException {
+        if (!played.await(CUE_PLAYBACK_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            Log.w(TAG, "⚠️ Cue still playing after " + CUE_PLAYBACK_TIMEOUT_MS + "ms - releasing the cue lane");
+        }
+    }
+    
+    /** Returns false if the cue lane is full; the milestone's snapshot is queued from the fix path either way. */
+    private boolean generateAndPlayFeedback(int meters, int elapsedSeconds, double pace) {
+        return scheduler.execute(TaskScheduler.LANE_CUE, () -> {
             Log.d(TAG, "🎯 Generating feedback for " + meters + "m");
+            long cueStartMs = System.currentTimeMillis();
+            CountDownLatch played = new CountDownLatch(1);
             
             if (sessionId == null || sessionStartTime == null) {
                 Log.e(TAG, "❌ Session not configured properly");
@@ -315,29 +861,29 @@ public class BioPeakLocationService extends Service {
             }
             
             try {
-                // Calculate metrics
-                int timeFromStart = (int) ((System.currentTimeMillis() - sessionStartTime) / 1000);
+                // Generate coaching message: the prefix is known in advance, the suffix depends on time and pace
+                String prefix = messages.milestonePrefix(meters);
+                String suffix = messages.milestoneSuffix(elapsedSeconds, pace);
+                Log.d(TAG, "💬 Message: " + prefix + " " + suffix);
                 
-                Double currentPace = null;
-                if (meters > 0 && timeFromStart > 0) {
-                    double distanceKm = meters / 1000.0;
-                    double timeMinutes = timeFromStart / 60.0;
-                    currentPace = timeMinutes / distanceKm;
+                File prefixAudio = ttsCache.peek(prefix, SpeechEngine.VOICE, SpeechEngine.SPEED);
+                cuePlayer.begin(played::countDown);
+                try {
+                    if (prefixAudio != null) {
+                        // Start speaking right away and synthesize the rest while the prefix plays
+                        cuePlayer.enqueue(AudioClip.of(prefixAudio));
+                        cuePlayer.enqueue(speechEngine.resolve(suffix, cueStartMs, this::fetchTTSAudio));
+                    } else {
+                        cuePlayer.enqueue(speechEngine.resolve(prefix + " " + suffix, cueStartMs, this::fetchTTSAudio));
+                    }
+                } finally {
+                    cuePlayer.finish();
                 }
                 
-                // Generate coaching message
-                String message = generateCoachingMessage(meters, timeFromStart, currentPace);
-                Log.d(TAG, "💬 Message: " + message);
-                
-                // Call TTS Edge Function
-                String audioUrl = callTTSEdgeFunction(message);
-                
-                // Play audio
-                playFeedbackAudio(audioUrl);
-                
-                // Save snapshot to Supabase
-                saveSnapshotToSupabase(meters, timeFromStart, currentPace);
+                // Keep the pre-synthesized window ahead of the runner
+                presynthesizeMilestones(meters / CoachingScript.MILESTONE_METERS + 1);
                 
+                awaitCuePlayed(played);
                 Log.d(TAG, "✅ Feedback completed for " + meters + "m");
                 
             } catch (Exception e) {
@@ -346,49 +892,15 @@ public class BioPeakLocationService extends Service {
         });
     }
     
-    private String formatDuration(int seconds) {
-        if (seconds < 60) {
-            return seconds + " segundos";
-        }
+    private void presynthesizeMilestones(int fromSegment) {
+        if (!shouldGiveFeedback) return;
         
-        int minutes = seconds / 60;
-        int remainingSeconds = seconds % 60;
-        
-        if (remainingSeconds == 0) {
-            return minutes == 1 ? "1 minuto" : minutes + " minutos";
-        } else {
-            String minText = minutes == 1 ? "minuto" : "minutos";
-            String secText = remainingSeconds == 1 ? "segundo" : "segundos";
-            return minutes + " " + minText + " e " + remainingSeconds + " " + secText;
-        }
+        List<String> texts = CoachingScript.milestonePrefixes(fromSegment, CoachingScript.MILESTONES_AHEAD);
+        scheduler.execute(TaskScheduler.LANE_BACKGROUND, () ->
+            CoachingScript.presynthesize(ttsCache, SpeechEngine.VOICE, SpeechEngine.SPEED, texts, this::fetchTTSAudio));
     }
     
-    private String formatPace(double minPerKm) {
-        int totalSeconds = (int) (minPerKm * 60);
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        
-        if (seconds == 0) {
-            return minutes + " minutos por quilômetro";
-        } else {
-            String minText = minutes == 1 ? "minuto" : "minutos";
-            String secText = seconds == 1 ? "segundo" : "segundos";
-            return minutes + " " + minText + " e " + seconds + " " + secText + " por quilômetro";
-        }
-    }
-    
-    private String generateCoachingMessage(int meters, int timeFromStart, Double pace) {
-        String timeText = formatDuration(timeFromStart);
-        
-        if (pace != null && pace > 0 && pace < 100) {
-            String paceText = formatPace(pace);
-            return "Você completou " + meters + " metros em " + timeText + ". Seu pace atual é " + paceText + ".";
-        } else {
-            return "Você completou " + meters + " metros em " + timeText + ". Continue assim!";
-        }
-    }
-    
-    private String callTTSEdgeFunction(String message) throws Exception {
+    private AudioBuffer fetchTTSAudio(String message) throws Exception {
         if (supabaseUrl == null || supabaseAnonKey == null) {
             throw new Exception("Supabase credentials not configured");
         }
@@ -397,8 +909,8 @@ public class BioPeakLocationService extends Service {
         
         JSONObject body = new JSONObject();
         body.put("text", message);
-        body.put("voice", "alloy");
-        body.put("speed", 1.0);
+        body.put("voice", SpeechEngine.VOICE);
+        body.put("speed", SpeechEngine.SPEED);
         
         RequestBody requestBody = RequestBody.create(
             body.toString(),
@@ -413,145 +925,53 @@ public class BioPeakLocationService extends Service {
             .addHeader("Authorization", "Bearer " + supabaseAnonKey)
             .build();
         
-        Response response = httpClient.newCall(request).execute();
-        
-        if (!response.isSuccessful()) {
-            throw new Exception("TTS API failed with status " + response.code());
-        }
-        
-        String responseBody = response.body().string();
-        JSONObject json = new JSONObject(responseBody);
-        
-        if (!json.has("audioContent")) {
-            throw new Exception("Failed to get audio content");
-        }
-        
-        String audioContent = json.getString("audioContent");
-        return "data:audio/mpeg;base64," + audioContent;
-    }
-    
-    private void playFeedbackAudio(String audioUrl) {
-        try {
-            Log.d(TAG, "🔊 Playing feedback audio...");
-            
-            // Stop any existing playback
-            if (feedbackMediaPlayer != null) {
-                feedbackMediaPlayer.release();
-                feedbackMediaPlayer = null;
-            }
-            
-            feedbackMediaPlayer = new MediaPlayer();
-            
-            // Handle Data URL (base64 audio)
-            if (audioUrl.startsWith("data:audio")) {
-                String base64Data = audioUrl.split(",")[1];
-                byte[] audioBytes = Base64.decode(base64Data, Base64.DEFAULT);
-                
-                File tempFile = File.createTempFile("biopeak_feedback", ".mp3", getCacheDir());
-                FileOutputStream fos = new FileOutputStream(tempFile);
-                fos.write(audioBytes);
-                fos.close();
-                
-                feedbackMediaPlayer.setDataSource(this, Uri.fromFile(tempFile));
-            } else {
-                feedbackMediaPlayer.setDataSource(audioUrl);
+        long requestStart = System.nanoTime();
+        try (Response response = httpClient.newCall(request).execute()) {
+            PerformanceStats.recordSince(PerformanceStats.TTS_REQUEST, requestStart);
+            if (!response.isSuccessful()) {
+                throw new Exception("TTS API failed with status " + response.code());
             }
             
-            feedbackMediaPlayer.setAudioAttributes(
-                new AudioAttributes.Builder()
-                    .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
-                    .setUsage(AudioAttributes.USAGE_MEDIA)
-                    .build()
-            );
-            
-            feedbackMediaPlayer.setOnCompletionListener(mp -> {
-                Log.d(TAG, "✅ Feedback audio completed");
-                if (mp != null) {
-                    mp.release();
-                }
-                feedbackMediaPlayer = null;
-            });
-            
-            feedbackMediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                Log.e(TAG, "❌ Audio error: " + what + ", " + extra);
-                if (mp != null) {
-                    mp.release();
-                }
-                feedbackMediaPlayer = null;
-                return false;
-            });
-            
-            feedbackMediaPlayer.prepareAsync();
-            feedbackMediaPlayer.setOnPreparedListener(mp -> {
-                mp.start();
-                Log.d(TAG, "▶️ Feedback audio started");
-            });
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error playing feedback audio: " + e.getMessage(), e);
+            // Decoded straight off the socket; the base64 body is never held as a String
+            ResponseBody responseBody = response.body();
+            long decodeStart = System.nanoTime();
+            AudioBuffer audio = TtsResponseDecoder.decode(responseBody.byteStream(), responseBody.contentLength());
+            PerformanceStats.recordSince(PerformanceStats.TTS_DECODE, decodeStart);
+            return audio;
         }
     }
     
-    private void saveSnapshotToSupabase(int meters, int timeFromStart, Double currentPace) {
-        if (sessionId == null || lastLocation == null) {
+    private void saveSnapshotToSupabase(int meters, int timeFromStart, Double currentPace, Location location,
+                                        double altitude, double elevationGain, double elevationLoss) {
+        if (sessionId == null || location == null) {
             Log.w(TAG, "⚠️ Snapshot save skipped: missing data");
             return;
         }
         
-        if (supabaseUrl == null || supabaseAnonKey == null || userToken == null) {
-            Log.e(TAG, "❌ Snapshot save failed: Supabase credentials not configured");
-            return;
+        try {
+            Double currentSpeedMs = location.hasSpeed() && location.getSpeed() >= 0 ? 
+                (double) location.getSpeed() : null;
+            
+            // Every column is always present so queued rows can be bulk-inserted together
+            JSONObject snapshotData = new JSONObject();
+            snapshotData.put("session_id", sessionId);
+            snapshotData.put("snapshot_at_distance_meters", meters);
+            snapshotData.put("snapshot_at_duration_seconds", timeFromStart);
+            snapshotData.put("latitude", location.getLatitude());
+            snapshotData.put("longitude", location.getLongitude());
+            snapshotData.put("elevation_meters", Double.isNaN(altitude) ? location.getAltitude() : altitude);
+            snapshotData.put("elevation_gain_meters", elevationGain);
+            snapshotData.put("elevation_loss_meters", elevationLoss);
+            snapshotData.put("source", "native_gps");
+            snapshotData.put("current_pace_min_km", currentPace != null ? currentPace : JSONObject.NULL);
+            snapshotData.put("current_speed_ms", currentSpeedMs != null ? currentSpeedMs : JSONObject.NULL);
+            
+            // Uploaded by the outbox, which survives signal loss and batches rows into bulk inserts
+            snapshotOutbox.enqueue(snapshotData);
+            
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Snapshot save error: " + e.getMessage(), e);
         }
-        
-        executorService.execute(() -> {
-            try {
-                Double currentSpeedMs = lastLocation.hasSpeed() && lastLocation.getSpeed() >= 0 ? 
-                    (double) lastLocation.getSpeed() : null;
-                
-                JSONObject snapshotData = new JSONObject();
-                snapshotData.put("session_id", sessionId);
-                snapshotData.put("snapshot_at_distance_meters", meters);
-                snapshotData.put("snapshot_at_duration_seconds", timeFromStart);
-                snapshotData.put("latitude", lastLocation.getLatitude());
-                snapshotData.put("longitude", lastLocation.getLongitude());
-                snapshotData.put("elevation_meters", lastLocation.getAltitude());
-                snapshotData.put("source", "native_gps");
-                
-                if (currentPace != null) {
-                    snapshotData.put("current_pace_min_km", currentPace);
-                }
-                if (currentSpeedMs != null) {
-                    snapshotData.put("current_speed_ms", currentSpeedMs);
-                }
-                
-                String url = supabaseUrl + "/rest/v1/performance_snapshots";
-                
-                RequestBody requestBody = RequestBody.create(
-                    snapshotData.toString(),
-                    MediaType.parse("application/json")
-                );
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .post(requestBody)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("apikey", supabaseAnonKey)
-                    .addHeader("Authorization", "Bearer " + userToken)
-                    .addHeader("Prefer", "return=representation")
-                    .build();
-                
-                Response response = httpClient.newCall(request).execute();
-                
-                if (response.isSuccessful()) {
-                    Log.d(TAG, "✅ Snapshot saved: " + meters + "m");
-                } else {
-                    Log.e(TAG, "❌ Snapshot save failed: " + response.code());
-                }
-                
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Snapshot save error: " + e.getMessage(), e);
-            }
-        });
     }
     
     @Override
@@ -561,14 +981,18 @@ public class BioPeakLocationService extends Service {
         
         stopLocationTracking();
         
-        if (feedbackMediaPlayer != null) {
-            feedbackMediaPlayer.release();
-            feedbackMediaPlayer = null;
+        if (locationThread != null) {
+            // Session ended normally - nothing left to resume
+            locationHandler.post(trackJournal::delete);
+            locationThread.quitSafely();
+            locationThread = null;
+            locationHandler = null;
         }
         
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        cuePlayer.stop();
+        
+        // Push whatever the run left queued while the app is still likely to be online
+        snapshotOutbox.flush();
         
         Log.d(TAG, "✅ Service destroyed");
     }
@@ -6,16 +6,15 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
-import android.media.AudioAttributes;
-import android.media.MediaPlayer;
-import android.net.Uri;
 import android.os.Build;
-import android.util.Base64;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
@@ -25,24 +24,28 @@ import com.getcapacitor.annotation.CapacitorPlugin;
 import org.json.JSONObject;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.util.Random;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 
 @CapacitorPlugin(name = "BioPeakLocationTracker")
 public class BioPeakLocationTracker extends Plugin {
     private static final String TAG = "BP/LocationPlugin";
+    private static final long COMPLETION_AUDIO_TIMEOUT_MS = 30_000;
+    private static final String EVENT_SPLIT = "split";
     
     private double accumulatedDistance = 0.0;
+    private long movingTime = 0; // ms, from the service's auto-pause clock
+    private float elevationGain = 0f;
+    private float elevationLoss = 0f;
     private boolean isTracking = false;
     
     // Configuration for Foreground Service
@@ -51,32 +54,59 @@ public class BioPeakLocationTracker extends Plugin {
     private boolean shouldGiveFeedback = false;
     private Long sessionStartTime;
     
+    // Cue program, compiled into a Workout by the service; 0 means not set
+    private double targetDistance;
+    private double targetPace;
+    private long targetDuration;
+    private int timeCueSeconds;
+    private int intervalReps;
+    private double intervalWorkMeters;
+    private long intervalWorkSeconds;
+    private long intervalRestSeconds;
+    
     // Supabase credentials
     private String supabaseUrl;
     private String supabaseAnonKey;
     private String userToken;
     
-    private ExecutorService executorService;
+    private TaskScheduler scheduler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
     private OkHttpClient httpClient;
     
     // Audio playback for completion audio
-    private MediaPlayer feedbackMediaPlayer;
-    private CountDownLatch audioCompletionLatch;
+    private SequentialAudioPlayer cuePlayer;
     
     // Broadcast receiver for location updates from service
     private BroadcastReceiver locationReceiver;
+    private LocationEventDispatcher locationDispatcher;
+    
+    // Splits and laps of the session, kept across stop/start until the distance is reset; main thread only
+    private BroadcastReceiver splitReceiver;
+    private final List<JSObject> splits = new ArrayList<>();
+    private int lapCount = 0;
+    
+    // In-process channel from the service; drained on the main thread, like the receiver
+    private final LocationChannel locationChannel = LocationChannel.getInstance();
+    private final LocationData channelFix = new LocationData();
+    private final AtomicBoolean channelDrainScheduled = new AtomicBoolean(false);
+    private final LocationChannel.Subscriber channelSubscriber = () -> {
+        if (channelDrainScheduled.compareAndSet(false, true)) {
+            mainHandler.post(this::drainLocationChannel);
+        }
+    };
+    private long channelReadSeq = 0;
+    private long channelMissedFixes = 0;
     
     @Override
     public void load() {
         super.load();
         Log.d(TAG, "🚀 Plugin loaded - will use Foreground Service for GPS");
         
-        executorService = Executors.newCachedThreadPool();
-        httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
-            .build();
+        scheduler = TaskScheduler.getInstance();
+        cuePlayer = new SequentialAudioPlayer(getContext());
+        locationDispatcher = new LocationEventDispatcher(mainHandler, this::notifyListeners);
+        SpeechEngine.getInstance(getContext()).warmUp();
+        httpClient = SupabaseHttp.client();
     }
     
     @PluginMethod
@@ -101,7 +131,18 @@ public class BioPeakLocationTracker extends Plugin {
         serviceIntent.putExtra("supabaseUrl", supabaseUrl);
         serviceIntent.putExtra("supabaseAnonKey", supabaseAnonKey);
         serviceIntent.putExtra("userToken", userToken);
+        serviceIntent.putExtra("targetDistance", targetDistance);
+        serviceIntent.putExtra("targetPace", targetPace);
+        serviceIntent.putExtra("targetDuration", targetDuration);
+        serviceIntent.putExtra("timeCueSeconds", timeCueSeconds);
+        serviceIntent.putExtra("intervalReps", intervalReps);
+        serviceIntent.putExtra("intervalWorkMeters", intervalWorkMeters);
+        serviceIntent.putExtra("intervalWorkSeconds", intervalWorkSeconds);
+        serviceIntent.putExtra("intervalRestSeconds", intervalRestSeconds);
         serviceIntent.putExtra("initialDistance", accumulatedDistance); // ✅ Pass current distance to Service
+        serviceIntent.putExtra("initialMovingTime", movingTime);
+        serviceIntent.putExtra("initialElevationGain", elevationGain);
+        serviceIntent.putExtra("initialElevationLoss", elevationLoss);
         
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             getContext().startForegroundService(serviceIntent);
@@ -126,6 +167,9 @@ public class BioPeakLocationTracker extends Plugin {
             result.put("success", true);
             result.put("message", "Not tracking");
             result.put("finalDistance", accumulatedDistance);
+            result.put("movingTime", movingTime);
+            result.put("elevationGain", elevationGain);
+            result.put("elevationLoss", elevationLoss);
             call.resolve(result);
             return;
         }
@@ -140,6 +184,10 @@ public class BioPeakLocationTracker extends Plugin {
             // Unregister broadcast receiver after short delay
             unregisterLocationReceiver();
             
+            // Deliver coalesced fixes still pending; the next session starts in immediate mode again
+            locationDispatcher.flush();
+            locationDispatcher.reset();
+            
             isTracking = false;
             // ⚠️ DO NOT reset sessionStartTime here - we need it for generateCompletionAudio()
             
@@ -150,6 +198,9 @@ public class BioPeakLocationTracker extends Plugin {
             result.put("success", true);
             result.put("message", "Location tracking stopped");
             result.put("finalDistance", accumulatedDistance);
+            result.put("movingTime", movingTime);
+            result.put("elevationGain", elevationGain);
+            result.put("elevationLoss", elevationLoss);
             call.resolve(result);
         }, 100); // Wait 100ms for final broadcasts
     }
@@ -159,47 +210,210 @@ public class BioPeakLocationTracker extends Plugin {
         Log.d(TAG, "🧹 Cleaning up all resources...");
         
         // Stop service if running
-        if (isTracking) {
+        boolean wasTracking = isTracking;
+        if (wasTracking) {
             Intent serviceIntent = new Intent(getContext(), BioPeakLocationService.class);
             serviceIntent.setAction(BioPeakLocationService.ACTION_STOP);
             getContext().stopService(serviceIntent);
-            unregisterLocationReceiver();
         }
         
         // Release media player
-        if (feedbackMediaPlayer != null) {
-            feedbackMediaPlayer.release();
-            feedbackMediaPlayer = null;
-        }
+        cuePlayer.stop();
         
-        // Reset all state
+        // The channel and the dispatcher belong to the main thread; resetting after the drain means a late fix
+        // cannot undo it
+        mainHandler.post(() -> {
+            if (wasTracking) {
+                unregisterLocationReceiver();
+            }
+            locationDispatcher.reset();
+            clearSplits();
+            resetSessionState();
+            
+            Log.d(TAG, "✅ Cleanup completed");
+            JSObject result = new JSObject();
+            result.put("success", true);
+            call.resolve(result);
+        });
+    }
+    
+    private void resetSessionState() {
         sessionStartTime = null;
         sessionId = null;
         trainingGoal = null;
+        targetDistance = 0;
+        targetPace = 0;
+        targetDuration = 0;
+        timeCueSeconds = 0;
+        intervalReps = 0;
         accumulatedDistance = 0.0;
+        movingTime = 0;
+        elevationGain = 0f;
+        elevationLoss = 0f;
         shouldGiveFeedback = false;
         supabaseUrl = null;
         supabaseAnonKey = null;
         userToken = null;
         isTracking = false;
-        
-        Log.d(TAG, "✅ Cleanup completed");
+    }
+    
+    @PluginMethod
+    public void getAccumulatedDistance(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("distance", accumulatedDistance);
+        result.put("movingTime", movingTime);
+        result.put("elevationGain", elevationGain);
+        result.put("elevationLoss", elevationLoss);
+        call.resolve(result);
+    }
+    
+    @PluginMethod
+    public void getSplits(PluginCall call) {
+        mainHandler.post(() -> {
+            JSArray array = new JSArray();
+            for (JSObject split : splits) {
+                array.put(split);
+            }
+            JSObject result = new JSObject();
+            result.put("splits", array);
+            call.resolve(result);
+        });
+    }
+    
+    @PluginMethod
+    public void markLap(PluginCall call) {
         JSObject result = new JSObject();
+        if (!isTracking) {
+            result.put("success", false);
+            call.resolve(result);
+            return;
+        }
+        
+        // Closed by the service at its latest fix and delivered as a split event like the kilometres
+        Intent serviceIntent = new Intent(getContext(), BioPeakLocationService.class);
+        serviceIntent.setAction(BioPeakLocationService.ACTION_LAP);
+        getContext().startService(serviceIntent);
         result.put("success", true);
         call.resolve(result);
     }
     
     @PluginMethod
-    public void getAccumulatedDistance(PluginCall call) {
+    public void setLocationDelivery(PluginCall call) {
+        String mode = call.getString("mode", LocationEventDispatcher.MODE_IMMEDIATE);
+        Long intervalMs = call.getLong("intervalMs");
+        
+        // Touches the same state as the broadcast receiver, so switch on the main thread
+        mainHandler.post(() -> {
+            if (!locationDispatcher.configure(mode, intervalMs)) {
+                call.reject("Unknown delivery mode: " + mode);
+                return;
+            }
+            
+            Log.d(TAG, "📨 Location delivery: " + mode + " every " + locationDispatcher.getIntervalMs() + "ms");
+            JSObject result = new JSObject();
+            result.put("success", true);
+            result.put("mode", locationDispatcher.getMode());
+            result.put("intervalMs", locationDispatcher.getIntervalMs());
+            call.resolve(result);
+        });
+    }
+    
+    @PluginMethod
+    public void exportTrace(PluginCall call) {
+        boolean accepted = scheduler.execute(TaskScheduler.LANE_INTERACTIVE, () -> {
+            try {
+                File dir = new File(getContext().getCacheDir(), "traces");
+                if (!dir.exists() && !dir.mkdirs()) {
+                    call.reject("Could not create trace directory");
+                    return;
+                }
+                File file = new File(dir, "biopeak_trace_" + System.currentTimeMillis() + ".bin");
+                int events = TraceLog.export(file);
+                Log.d(TAG, "🧾 Trace exported: " + events + " events → " + file.getName());
+                
+                JSObject result = new JSObject();
+                result.put("path", file.getAbsolutePath());
+                result.put("events", events);
+                result.put("bytes", file.length());
+                call.resolve(result);
+            } catch (IOException e) {
+                call.reject("Failed to export trace", e);
+            }
+        });
+        if (!accepted) {
+            call.reject("Too many pending requests");
+        }
+    }
+    
+    @PluginMethod
+    public void getPerformanceStats(PluginCall call) {
+        JSObject stages = new JSObject();
+        for (int stage = 0; stage < PerformanceStats.stageCount(); stage++) {
+            JSObject stats = new JSObject();
+            stats.put("count", PerformanceStats.getCount(stage));
+            stats.put("meanMs", PerformanceStats.getMeanMs(stage));
+            stats.put("p50Ms", PerformanceStats.getPercentileMs(stage, 0.50));
+            stats.put("p95Ms", PerformanceStats.getPercentileMs(stage, 0.95));
+            stats.put("p99Ms", PerformanceStats.getPercentileMs(stage, 0.99));
+            stats.put("maxMs", PerformanceStats.getMaxMs(stage));
+            JSArray buckets = new JSArray();
+            for (long count : PerformanceStats.getBuckets(stage)) {
+                buckets.put(count);
+            }
+            stats.put("buckets", buckets);
+            stages.put(PerformanceStats.stageName(stage), stats);
+        }
+        
+        JSArray bounds = new JSArray();
+        for (double bound : PerformanceStats.bucketBoundsMs()) {
+            bounds.put(bound);
+        }
+        
+        JSObject lanes = new JSObject();
+        for (int lane = 0; lane < TaskScheduler.laneCount(); lane++) {
+            JSObject stats = new JSObject();
+            stats.put("queueDepth", scheduler.getQueueDepth(lane));
+            stats.put("maxQueueDepth", scheduler.getMaxQueueDepth(lane));
+            stats.put("completed", scheduler.getCompleted(lane));
+            stats.put("rejected", scheduler.getRejected(lane));
+            stats.put("avgWaitMs", scheduler.getAverageWaitMs(lane));
+            stats.put("maxWaitMs", scheduler.getMaxWaitMs(lane));
+            lanes.put(TaskScheduler.laneName(lane), stats);
+        }
+        
         JSObject result = new JSObject();
-        result.put("distance", accumulatedDistance);
+        result.put("since", PerformanceStats.getSinceMs());
+        result.put("bucketBoundsMs", bounds);
+        result.put("stages", stages);
+        result.put("lanes", lanes);
+        result.put("missedFixes", channelMissedFixes);
+        call.resolve(result);
+    }
+    
+    @PluginMethod
+    public void getSpeechStats(PluginCall call) {
+        SpeechEngine engine = SpeechEngine.getInstance(getContext());
+        JSObject result = new JSObject();
+        for (int path = SpeechEngine.PATH_CACHE; path <= SpeechEngine.PATH_LOCAL; path++) {
+            JSObject stats = new JSObject();
+            stats.put("count", engine.getServedCount(path));
+            stats.put("avgLatencyMs", engine.getAverageLatencyMs(path));
+            stats.put("maxLatencyMs", engine.getMaxLatencyMs(path));
+            result.put(SpeechEngine.pathName(path), stats);
+        }
+        result.put("deadlineMisses", engine.getDeadlineMisses());
+        result.put("cloudFailures", engine.getCloudFailures());
         call.resolve(result);
     }
     
     @PluginMethod
     public void resetDistance(PluginCall call) {
         accumulatedDistance = 0.0;
+        movingTime = 0;
+        elevationGain = 0f;
+        elevationLoss = 0f;
         sessionStartTime = null;
+        mainHandler.post(this::clearSplits);
         Log.d(TAG, "🔄 Distance reset");
         JSObject result = new JSObject();
         result.put("success", true);
@@ -214,12 +428,42 @@ public class BioPeakLocationTracker extends Plugin {
         supabaseUrl = call.getString("supabaseUrl");
         supabaseAnonKey = call.getString("supabaseAnonKey");
         userToken = call.getString("userToken");
+        targetDistance = call.getDouble("targetDistance", 0.0);
+        targetPace = call.getDouble("targetPace", 0.0);
+        targetDuration = Math.round(call.getDouble("targetDuration", 0.0));
+        timeCueSeconds = call.getInt("timeCueSeconds", 0);
+        
+        JSObject intervals = call.getObject("intervals");
+        intervalReps = intervals != null ? intervals.optInt("reps", 0) : 0;
+        if (intervalReps > 0) {
+            intervalWorkMeters = intervals.optDouble("workMeters", 0.0);
+            intervalWorkSeconds = Math.round(intervals.optDouble("workSeconds", 0.0));
+            intervalRestSeconds = Math.round(intervals.optDouble("restSeconds", 0.0));
+        }
         
         Log.d(TAG, "✅ Feedback configured:");
         Log.d(TAG, "   → sessionId: " + sessionId);
         Log.d(TAG, "   → trainingGoal: " + trainingGoal);
+        Log.d(TAG, "   → targets: " + targetDistance + "m, " + targetPace + " min/km, " + targetDuration + "s");
+        if (intervalReps > 0) {
+            Log.d(TAG, "   → intervals: " + intervalReps + " x " + (intervalWorkMeters > 0 ? intervalWorkMeters + "m"
+                    : intervalWorkSeconds + "s") + " / " + intervalRestSeconds + "s rest");
+        }
         Log.d(TAG, "   → enabled: " + shouldGiveFeedback);
         
+        // Lets snapshots left queued by an earlier run upload as soon as we have a valid token
+        SnapshotOutbox.getInstance(getContext()).setCredentials(supabaseUrl, supabaseAnonKey, userToken);
+        
+        // Warm DNS and TLS now so the first in-run cue and snapshot skip the handshake
+        SupabaseHttp.preconnect(supabaseUrl);
+        
+        // The completion preamble and motivational lines never change - synthesize them before the run ends
+        if (shouldGiveFeedback && supabaseUrl != null && supabaseAnonKey != null) {
+            TtsAudioCache cache = TtsAudioCache.getInstance(getContext());
+            scheduler.execute(TaskScheduler.LANE_BACKGROUND, () -> CoachingScript.presynthesize(
+                cache, SpeechEngine.VOICE, SpeechEngine.SPEED, CoachingScript.completionSegments(), this::fetchTTSAudio));
+        }
+        
         JSObject result = new JSObject();
         result.put("success", true);
         call.resolve(result);
@@ -227,7 +471,8 @@ public class BioPeakLocationTracker extends Plugin {
     
     @PluginMethod
     public void generateCompletionAudio(PluginCall call) {
-        executorService.execute(() -> {
+        long cueStartMs = System.currentTimeMillis();
+        boolean accepted = scheduler.execute(TaskScheduler.LANE_INTERACTIVE, () -> {
             try {
                 // Calculate final metrics
                 if (sessionStartTime == null) {
@@ -242,38 +487,60 @@ public class BioPeakLocationTracker extends Plugin {
                 int totalDistance = (int) accumulatedDistance;
                 int timeFromStart = (int) ((System.currentTimeMillis() - sessionStartTime) / 1000);
                 
-                // Calculate average pace
-                Double currentPace = null;
-                if (totalDistance > 0 && timeFromStart > 0) {
-                    double distanceKm = totalDistance / 1000.0;
-                    double timeMinutes = timeFromStart / 60.0;
-                    currentPace = timeMinutes / distanceKm;
-                }
+                // Average pace over moving time, so stops at crossings do not inflate it
+                int movingSeconds = movingTime > 0 ? (int) (movingTime / 1000) : timeFromStart;
+                double pace = Pace.minutesPerKm(movingSeconds, totalDistance);
                 
                 Log.d(TAG, "🏁 [Native GPS] Generating completion audio:");
                 Log.d(TAG, "   → distance: " + totalDistance + "m");
-                Log.d(TAG, "   → time: " + timeFromStart + "s");
-                if (currentPace != null) {
-                    Log.d(TAG, "   → pace: " + String.format("%.2f", currentPace) + " min/km");
+                Log.d(TAG, "   → time: " + timeFromStart + "s (moving " + movingSeconds + "s)");
+                if (pace > 0) {
+                    Log.d(TAG, "   → pace: " + pace + " min/km");
                 }
+                Log.d(TAG, "   → elevation: +" + elevationGain + "m / -" + elevationLoss + "m");
                 
-                // Generate completion message
-                String message = generateCompletionMessage(totalDistance, timeFromStart, currentPace);
-                Log.d(TAG, "💬 [Native GPS] Completion message: " + message);
+                // Generate completion message: preamble and motivational phrase are pre-synthesized, only the summary is dynamic
+                CoachingMessages messages = CoachingMessages.getInstance();
+                String motivation = messages.randomMotivation();
                 
-                // Call TTS Edge Function
-                Log.d(TAG, "🌐 [Native GPS] Calling TTS for completion audio...");
-                String audioUrl = callTTSEdgeFunction(message);
+                TtsAudioCache cache = TtsAudioCache.getInstance(getContext());
+                File preambleAudio = cache.peek(CoachingMessages.COMPLETION_PREAMBLE, SpeechEngine.VOICE, SpeechEngine.SPEED);
+                File motivationAudio = cache.peek(motivation, SpeechEngine.VOICE, SpeechEngine.SPEED);
                 
-                // Play completion audio and wait for it to finish
-                Log.d(TAG, "🔊 [Native GPS] Playing completion audio...");
-                playCompletionAudioAndWait(audioUrl);
+                // The call resolves when playback ends (max 30 seconds) instead of parking a worker thread on it
+                AtomicBoolean settled = new AtomicBoolean(false);
+                Runnable timeout = () -> {
+                    if (!settled.compareAndSet(false, true)) return;
+                    Log.w(TAG, "⚠️ [Native GPS] Audio playback timeout after 30s");
+                    resolveCompletionAudio(call);
+                };
+                mainHandler.postDelayed(timeout, COMPLETION_AUDIO_TIMEOUT_MS);
+                cuePlayer.begin(() -> {
+                    if (!settled.compareAndSet(false, true)) return;
+                    mainHandler.removeCallbacks(timeout);
+                    Log.d(TAG, "✅ [Native GPS] Completion audio finished playing");
+                    resolveCompletionAudio(call);
+                });
+                try {
+                    // The cached preamble starts playing while the summary is synthesized
+                    if (preambleAudio != null) {
+                        cuePlayer.enqueue(AudioClip.of(preambleAudio));
+                    }
+                    
+                    String dynamicText = messages.completion(preambleAudio == null, totalDistance, timeFromStart, pace,
+                            Math.round(elevationGain), motivationAudio != null ? null : motivation);
+                    Log.d(TAG, "💬 [Native GPS] Completion message: " + dynamicText);
+                    Log.d(TAG, "🌐 [Native GPS] Calling TTS for completion audio...");
+                    cuePlayer.enqueue(SpeechEngine.getInstance(getContext()).resolve(dynamicText, cueStartMs, this::fetchTTSAudio));
+                    
+                    if (motivationAudio != null) {
+                        cuePlayer.enqueue(AudioClip.of(motivationAudio));
+                    }
+                } finally {
+                    cuePlayer.finish();
+                }
                 
-                Log.d(TAG, "✅ [Native GPS] Completion audio finished playing");
-                JSObject result = new JSObject();
-                result.put("success", true);
-                result.put("message", "Completion audio played");
-                call.resolve(result);
+                Log.d(TAG, "🔊 [Native GPS] Playing completion audio...");
                 
             } catch (Exception e) {
                 Log.e(TAG, "❌ [Native GPS] Error generating completion audio: " + e.getMessage(), e);
@@ -283,11 +550,29 @@ public class BioPeakLocationTracker extends Plugin {
                 call.resolve(result);
             }
         });
+        
+        if (!accepted) {
+            JSObject result = new JSObject();
+            result.put("success", false);
+            result.put("message", "Too many pending requests");
+            call.resolve(result);
+        }
     }
     
-    // MARK: - Broadcast Receiver for Service Updates
+    private void resolveCompletionAudio(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("success", true);
+        result.put("message", "Completion audio played");
+        call.resolve(result);
+    }
+    
+    // MARK: - Location Updates from Service
     
     private void registerLocationReceiver() {
+        // Primary path: read fixes straight from the in-process ring, no IPC or Parcel
+        channelReadSeq = locationChannel.subscribe(channelSubscriber);
+        
+        // Fallback: the service only broadcasts while nobody is subscribed to the channel
         locationReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
@@ -296,26 +581,11 @@ public class BioPeakLocationTracker extends Plugin {
                     Log.w(TAG, "⚠️ [BROADCAST] Received null locationData");
                     return;
                 }
-                
-                // Update local state with distance from service
-                double previousDistance = accumulatedDistance;
-                accumulatedDistance = data.totalDistance;
-                
-                Log.d(TAG, "📡 [BROADCAST] Distance sync: " + previousDistance + "m → " + accumulatedDistance + "m");
-                
-                // Forward to JavaScript
-                JSObject jsData = new JSObject();
-                jsData.put("latitude", data.latitude);
-                jsData.put("longitude", data.longitude);
-                jsData.put("accuracy", data.accuracy);
-                jsData.put("altitude", data.altitude);
-                jsData.put("speed", data.speed);
-                jsData.put("heading", data.heading);
-                jsData.put("distance", data.distanceIncrement);
-                jsData.put("totalDistance", data.totalDistance);
-                jsData.put("timestamp", data.timestamp);
-                
-                notifyListeners("locationUpdate", jsData);
+                onLocationFix(data);
+                long publishedAt = intent.getLongExtra("publishedAtNanos", 0);
+                if (publishedAt != 0) {
+                    PerformanceStats.recordSince(PerformanceStats.DELIVERY, publishedAt);
+                }
             }
         };
         
@@ -326,100 +596,98 @@ public class BioPeakLocationTracker extends Plugin {
             ContextCompat.RECEIVER_NOT_EXPORTED
         );
         
-        Log.d(TAG, "📡 Broadcast receiver registered");
+        splitReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                onSplit(intent);
+            }
+        };
+        ContextCompat.registerReceiver(
+            getContext(),
+            splitReceiver,
+            new IntentFilter(BioPeakLocationService.BROADCAST_SPLIT),
+            ContextCompat.RECEIVER_NOT_EXPORTED
+        );
+        
+        Log.d(TAG, "📡 Location channel subscribed, broadcast receivers registered");
     }
     
-    private void unregisterLocationReceiver() {
-        if (locationReceiver != null) {
-            getContext().unregisterReceiver(locationReceiver);
-            locationReceiver = null;
-            Log.d(TAG, "📡 Broadcast receiver unregistered");
-        }
+    private void onSplit(Intent intent) {
+        String kind = intent.getStringExtra("kind");
+        // Lap numbers restart with every service run; number them over the whole session here
+        int index = "lap".equals(kind) ? ++lapCount : intent.getIntExtra("index", 0);
+        double elevationDelta = intent.getDoubleExtra("elevationDelta", Double.NaN);
+        
+        JSObject split = new JSObject();
+        split.put("kind", kind);
+        split.put("index", index);
+        split.put("distance", intent.getDoubleExtra("distance", 0));
+        split.put("movingTime", intent.getLongExtra("movingTime", 0));
+        split.put("pace", intent.getIntExtra("pace", 0));
+        split.put("elevationDelta", Double.isNaN(elevationDelta) ? JSONObject.NULL : elevationDelta);
+        split.put("totalDistance", intent.getDoubleExtra("totalDistance", 0));
+        splits.add(split);
+        
+        notifyListeners(EVENT_SPLIT, split);
     }
     
-    // MARK: - Completion Audio (handled directly by plugin, not service)
-    
-    // MARK: - Message Formatting Helpers
-    
-    private String formatDuration(int seconds) {
-        if (seconds < 60) {
-            return seconds + " segundos";
-        }
-        
-        int minutes = seconds / 60;
-        int remainingSeconds = seconds % 60;
-        
-        if (remainingSeconds == 0) {
-            return minutes == 1 ? "1 minuto" : minutes + " minutos";
-        } else {
-            String minText = minutes == 1 ? "minuto" : "minutos";
-            String secText = remainingSeconds == 1 ? "segundo" : "segundos";
-            return minutes + " " + minText + " e " + remainingSeconds + " " + secText;
-        }
+    private void clearSplits() {
+        splits.clear();
+        lapCount = 0;
     }
     
-    private String formatPace(double minPerKm) {
-        int totalSeconds = (int) (minPerKm * 60);
-        int minutes = totalSeconds / 60;
-        int seconds = totalSeconds % 60;
-        
-        if (seconds == 0) {
-            return minutes + " minutos por quilômetro";
-        } else {
-            String minText = minutes == 1 ? "minuto" : "minutos";
-            String secText = seconds == 1 ? "segundo" : "segundos";
-            return minutes + " " + minText + " e " + seconds + " " + secText + " por quilômetro";
+    private void drainLocationChannel() {
+        channelDrainScheduled.set(false);
+        while (channelReadSeq < locationChannel.getPublished()) {
+            if (!locationChannel.read(channelReadSeq, channelFix)) {
+                // Lapped by the producer (main thread stalled for minutes): skip to the oldest fix still held
+                long oldest = locationChannel.oldestAvailable();
+                if (oldest <= channelReadSeq) break;
+                Log.w(TAG, "⚠️ [CHANNEL] Missed " + (oldest - channelReadSeq) + " fixes");
+                channelMissedFixes += oldest - channelReadSeq;
+                channelReadSeq = oldest;
+                continue;
+            }
+            long publishedAt = locationChannel.getPublishNanos(channelReadSeq);
+            channelReadSeq++;
+            onLocationFix(channelFix);
+            PerformanceStats.recordSince(PerformanceStats.DELIVERY, publishedAt);
         }
     }
     
-    private String generateCoachingMessage(int meters, int timeFromStart, Double pace) {
-        String timeText = formatDuration(timeFromStart);
-        
-        if (pace != null && pace > 0 && pace < 100) {
-            String paceText = formatPace(pace);
-            return "Você completou " + meters + " metros em " + timeText + ". Seu pace atual é " + paceText + ".";
-        } else {
-            return "Você completou " + meters + " metros em " + timeText + ". Continue assim!";
-        }
+    private void onLocationFix(LocationData data) {
+        // Update local state with distance from service
+        accumulatedDistance = data.totalDistance;
+        movingTime = data.movingTime;
+        elevationGain = data.elevationGain;
+        elevationLoss = data.elevationLoss;
+        
+        // Forward to JavaScript in the delivery mode chosen for this session
+        locationDispatcher.dispatch(data);
     }
     
-    private String generateCompletionMessage(int meters, int timeFromStart, Double pace) {
-        double distanceKm = meters / 1000.0;
-        String distanceText;
-        
-        if (distanceKm < 1.0) {
-            distanceText = meters + " metros";
-        } else {
-            distanceText = String.format("%.2f quilômetros", distanceKm);
+    private void unregisterLocationReceiver() {
+        locationChannel.unsubscribe(channelSubscriber);
+        drainLocationChannel();
+        if (channelMissedFixes > 0) {
+            Log.w(TAG, "⚠️ [CHANNEL] " + channelMissedFixes + " fixes missed this session");
+            channelMissedFixes = 0;
         }
         
-        String timeText = formatDuration(timeFromStart);
-        
-        String message;
-        if (pace != null && pace > 0 && pace < 100) {
-            String paceText = formatPace(pace);
-            message = "Parabéns! Você completou seu treino em " + timeText + ", percorrendo uma distância de " + 
-                     distanceText + " em um pace de " + paceText + ". ";
-        } else {
-            message = "Parabéns! Você completou seu treino em " + timeText + ", percorrendo uma distância de " + 
-                     distanceText + ". ";
+        if (locationReceiver != null) {
+            getContext().unregisterReceiver(locationReceiver);
+            locationReceiver = null;
+            Log.d(TAG, "📡 Broadcast receiver unregistered");
+        }
+        if (splitReceiver != null) {
+            getContext().unregisterReceiver(splitReceiver);
+            splitReceiver = null;
         }
-        
-        // Add random motivational phrase
-        String[] motivationPhrases = {
-            "Excelente desempenho hoje! Continue assim.",
-            "Você está evoluindo rápido — orgulhe-se desse treino!",
-            "Mais um passo na jornada. Mantenha a constância!",
-            "Ótimo trabalho! A cada treino, mais forte.",
-            "Treino concluído com sucesso! Descanse bem para o próximo desafio."
-        };
-        Random random = new Random();
-        message += motivationPhrases[random.nextInt(motivationPhrases.length)];
-        
-        return message;
     }
     
-    private String callTTSEdgeFunction(String message) throws Exception {
+    // MARK: - Completion Audio (handled directly by plugin, not service)
+    
+    private AudioBuffer fetchTTSAudio(String message) throws Exception {
         if (supabaseUrl == null) {
             Log.e(TAG, "❌ [Native GPS] TTS Error: Supabase URL not configured");
             throw new Exception("Supabase URL not configured");
@@ -434,8 +702,8 @@ public class BioPeakLocationTracker extends Plugin {
         
         JSONObject body = new JSONObject();
         body.put("text", message);
-        body.put("voice", "alloy");
-        body.put("speed", 1.0);
+        body.put("voice", SpeechEngine.VOICE);
+        body.put("speed", SpeechEngine.SPEED);
         
         Log.d(TAG, "📡 [Native GPS] TTS Request:");
         Log.d(TAG, "   → URL: " + url);
@@ -454,122 +722,25 @@ public class BioPeakLocationTracker extends Plugin {
             .addHeader("Authorization", "Bearer " + supabaseAnonKey)
             .build();
         
-        Response response = httpClient.newCall(request).execute();
-        
-        Log.d(TAG, "📥 [Native GPS] TTS Response:");
-        Log.d(TAG, "   → Status: " + response.code());
-        
-        if (!response.isSuccessful()) {
-            String responseBody = response.body() != null ? response.body().string() : "Unable to decode";
-            Log.e(TAG, "❌ [Native GPS] TTS Error Response Body: " + responseBody);
-            throw new Exception("TTS API failed with status " + response.code());
-        }
-        
-        String responseBody = response.body().string();
-        JSONObject json = new JSONObject(responseBody);
-        
-        Log.d(TAG, "   → Has audioContent: " + json.has("audioContent"));
-        
-        if (!json.has("audioContent")) {
-            Log.e(TAG, "❌ [Native GPS] TTS Error: audioContent missing in response");
-            throw new Exception("Failed to get audio content");
-        }
-        
-        String audioContent = json.getString("audioContent");
-        Log.d(TAG, "✅ [Native GPS] TTS audio content received (length: " + audioContent.length() + " chars)");
-        return "data:audio/mpeg;base64," + audioContent;
-    }
-    
-    
-    private void playCompletionAudioAndWait(String audioUrl) throws InterruptedException {
-        audioCompletionLatch = new CountDownLatch(1);
-        
-        Log.d(TAG, "🔊 [Native GPS] Playing completion audio and waiting...");
-        Log.d(TAG, "   → Audio URL length: " + audioUrl.length() + " chars");
-        
-        getBridge().execute(() -> {
-            try {
-                // Stop any existing playback
-                if (feedbackMediaPlayer != null) {
-                    feedbackMediaPlayer.release();
-                    feedbackMediaPlayer = null;
-                }
-                
-                feedbackMediaPlayer = new MediaPlayer();
-                
-                // Handle Data URL (base64 audio)
-                if (audioUrl.startsWith("data:audio")) {
-                    playDataUrl(audioUrl, feedbackMediaPlayer, true);
-                } else {
-                    feedbackMediaPlayer.setDataSource(audioUrl);
-                }
-                
-                feedbackMediaPlayer.setAudioAttributes(
-                    new AudioAttributes.Builder()
-                        .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
-                        .setUsage(AudioAttributes.USAGE_MEDIA)
-                        .build()
-                );
-                
-                feedbackMediaPlayer.setOnCompletionListener(mp -> {
-                    Log.d(TAG, "✅ [Native GPS] Completion audio finished");
-                    if (mp != null) {
-                        mp.release();
-                    }
-                    feedbackMediaPlayer = null;
-                    audioCompletionLatch.countDown();
-                });
-                
-                feedbackMediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                    Log.e(TAG, "❌ [Native GPS] Completion audio error: " + what + ", " + extra);
-                    if (mp != null) {
-                        mp.release();
-                    }
-                    feedbackMediaPlayer = null;
-                    audioCompletionLatch.countDown();
-                    return false;
-                });
-                
-                feedbackMediaPlayer.prepareAsync();
-                feedbackMediaPlayer.setOnPreparedListener(mp -> {
-                    mp.start();
-                    Log.d(TAG, "▶️ [Native GPS] Completion audio started");
-                });
-                
-            } catch (Exception e) {
-                Log.e(TAG, "❌ [Native GPS] Error playing completion audio: " + e.getMessage(), e);
-                audioCompletionLatch.countDown();
-            }
-        });
-        
-        // Wait for audio to complete (max 30 seconds timeout)
-        boolean completed = audioCompletionLatch.await(30, TimeUnit.SECONDS);
-        if (!completed) {
-            Log.w(TAG, "⚠️ [Native GPS] Audio playback timeout after 30s");
-        } else {
-            Log.d(TAG, "✅ [Native GPS] Audio playback completed successfully");
-        }
-    }
-    
-    private void playDataUrl(String dataUrl, MediaPlayer player, boolean isCompletion) {
-        try {
-            // Extract base64 data
-            String base64Data = dataUrl.split(",")[1];
-            byte[] audioBytes = Base64.decode(base64Data, Base64.DEFAULT);
-            
-            // Save to temporary file
-            File tempFile = File.createTempFile("biopeak_" + (isCompletion ? "completion" : "feedback"), ".mp3", getContext().getCacheDir());
-            FileOutputStream fos = new FileOutputStream(tempFile);
-            fos.write(audioBytes);
-            fos.close();
+        long requestStart = System.nanoTime();
+        try (Response response = httpClient.newCall(request).execute()) {
+            PerformanceStats.recordSince(PerformanceStats.TTS_REQUEST, requestStart);
+            Log.d(TAG, "📥 [Native GPS] TTS Response:");
+            Log.d(TAG, "   → Status: " + response.code());
             
-            // Set data source
-            player.setDataSource(getContext(), Uri.fromFile(tempFile));
+            if (!response.isSuccessful()) {
+                String responseBody = response.body() != null ? response.body().string() : "Unable to decode";
+                Log.e(TAG, "❌ [Native GPS] TTS Error Response Body: " + responseBody);
+                throw new Exception("TTS API failed with status " + response.code());
+            }
             
-            Log.d(TAG, "✅ [Native GPS] Data URL decoded and saved to: " + tempFile.getAbsolutePath());
-        } catch (Exception e) {
-            Log.e(TAG, "❌ [Native GPS] Error decoding data URL: " + e.getMessage(), e);
-            throw new RuntimeException(e);
+            // Decoded straight off the socket; the base64 body is never held as a String
+            ResponseBody responseBody = response.body();
+            long decodeStart = System.nanoTime();
+            AudioBuffer audio = TtsResponseDecoder.decode(responseBody.byteStream(), responseBody.contentLength());
+            PerformanceStats.recordSince(PerformanceStats.TTS_DECODE, decodeStart);
+            Log.d(TAG, "✅ [Native GPS] TTS audio content received (" + audio.length() + " bytes)");
+            return audio;
         }
     }
     
@@ -578,12 +749,7 @@ public class BioPeakLocationTracker extends Plugin {
     protected void handleOnDestroy() {
         super.handleOnDestroy();
         unregisterLocationReceiver();
-        if (feedbackMediaPlayer != null) {
-            feedbackMediaPlayer.release();
-            feedbackMediaPlayer = null;
-        }
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        locationDispatcher.reset();
+        cuePlayer.stop();
     }
 }
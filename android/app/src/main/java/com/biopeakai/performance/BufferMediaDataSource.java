@@ -0,0 +1,39 @@
+package com.biopeakai.performance;
+
+import android.media.MediaDataSource;
+
+/**
+ * Feeds MediaPlayer straight from an {@link AudioBuffer}, so decoded speech never touches the disk.
+ * Releases the buffer exactly once, whether closed by the framework or by the player.
+ */
+class BufferMediaDataSource extends MediaDataSource {
+    private final AudioBuffer buffer;
+    private boolean closed = false;
+
+    BufferMediaDataSource(AudioBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int readAt(long position, byte[] dest, int offset, int size) {
+        int length = buffer.length();
+        if (position >= length) {
+            return -1;
+        }
+        int count = (int) Math.min(size, length - position);
+        System.arraycopy(buffer.array(), (int) position, dest, offset, count);
+        return count;
+    }
+
+    @Override
+    public long getSize() {
+        return buffer.length();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) return;
+        closed = true;
+        buffer.release();
+    }
+}
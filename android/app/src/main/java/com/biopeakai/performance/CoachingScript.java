@@ -0,0 +1,65 @@
+package com.biopeakai.performance;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of the coaching script whose text is known before the run starts. These are synthesized
+ * into the TTS cache ahead of time so that at a milestone only the dynamic part (time, pace) needs a
+ * round trip, and it can be fetched while the cached part is already playing.
+ */
+public final class CoachingScript {
+    private static final String TAG = "BP/CoachingScript";
+
+    // How many milestone announcements to keep synthesized ahead of the runner
+    public static final int MILESTONES_AHEAD = 10;
+    public static final int MILESTONE_METERS = 500;
+
+    public interface Synthesizer {
+        AudioBuffer synthesize(String text) throws Exception;
+    }
+
+    private CoachingScript() {}
+
+    public static List<String> milestonePrefixes(int fromSegment, int count) {
+        CoachingMessages messages = CoachingMessages.getInstance();
+        List<String> texts = new ArrayList<>(count);
+        for (int segment = fromSegment; segment < fromSegment + count; segment++) {
+            texts.add(messages.milestonePrefix(segment * MILESTONE_METERS));
+        }
+        return texts;
+    }
+
+    public static List<String> completionSegments() {
+        List<String> texts = new ArrayList<>(CoachingMessages.MOTIVATION_PHRASES.length + 1);
+        texts.add(CoachingMessages.COMPLETION_PREAMBLE);
+        for (String phrase : CoachingMessages.MOTIVATION_PHRASES) {
+            texts.add(phrase);
+        }
+        return texts;
+    }
+
+    /**
+     * Synthesizes every text that is not cached yet. Blocking and sequential so it never competes with a
+     * live cue for bandwidth; call it from a background thread.
+     */
+    public static void presynthesize(TtsAudioCache cache, String voice, double speed,
+                                     List<String> texts, Synthesizer synthesizer) {
+        int synthesized = 0;
+        for (String text : texts) {
+            if (cache.contains(text, voice, speed)) continue;
+            try {
+                // Nobody plays it now - just let the cache persist it
+                cache.get(text, voice, speed, () -> synthesizer.synthesize(text)).release();
+                synthesized++;
+            } catch (Exception e) {
+                // Not fatal: the cue will be synthesized on demand at trigger time
+                Log.w(TAG, "⚠️ Pre-synthesis failed for \"" + text + "\": " + e.getMessage());
+                return;
+            }
+        }
+        Log.d(TAG, "🗣️ Pre-synthesis done: " + synthesized + " new, " + (texts.size() - synthesized) + " already cached");
+    }
+}
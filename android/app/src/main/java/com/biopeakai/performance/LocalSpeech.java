@@ -0,0 +1,129 @@
+package com.biopeakai.performance;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.speech.tts.TextToSpeech;
+import android.speech.tts.UtteranceProgressListener;
+import android.util.Log;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Android's on-device TextToSpeech, used when the cloud voice cannot deliver a cue in time.
+ * The engine binds asynchronously, so {@link #warmUp()} should run well before the first cue.
+ */
+public class LocalSpeech implements TextToSpeech.OnInitListener {
+    private static final String TAG = "BP/LocalSpeech";
+    private static final Locale LOCALE = new Locale("pt", "BR");
+
+    private static LocalSpeech instance;
+
+    private final Context context;
+    private final ConcurrentHashMap<String, Runnable> pending = new ConcurrentHashMap<>();
+    private TextToSpeech tts;
+    private volatile boolean ready = false;
+    // Set by a failed onInit, which can run inside the TextToSpeech constructor before warmUp() has the instance
+    private boolean initFailed = false;
+
+    public static synchronized LocalSpeech getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalSpeech(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private LocalSpeech(Context context) {
+        this.context = context;
+    }
+
+    public synchronized void warmUp() {
+        if (tts == null) {
+            initFailed = false;
+            TextToSpeech engine = new TextToSpeech(context, this);
+            if (initFailed) {
+                engine.shutdown();
+            } else {
+                tts = engine;
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public void onInit(int status) {
+        if (status != TextToSpeech.SUCCESS) {
+            Log.e(TAG, "❌ TextToSpeech init failed: " + status);
+            synchronized (this) {
+                initFailed = true;
+                if (tts != null) {
+                    tts.shutdown();
+                    tts = null; // retried on the next warmUp()
+                }
+            }
+            return;
+        }
+
+        int language = tts.setLanguage(LOCALE);
+        if (language == TextToSpeech.LANG_MISSING_DATA || language == TextToSpeech.LANG_NOT_SUPPORTED) {
+            Log.w(TAG, "⚠️ pt-BR voice unavailable, using the engine default");
+        }
+        tts.setAudioAttributes(
+            new AudioAttributes.Builder()
+                .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .build()
+        );
+        tts.setOnUtteranceProgressListener(new UtteranceProgressListener() {
+            @Override
+            public void onStart(String utteranceId) {}
+
+            @Override
+            public void onDone(String utteranceId) {
+                complete(utteranceId);
+            }
+
+            @Override
+            public void onError(String utteranceId) {
+                Log.e(TAG, "❌ Utterance failed: " + utteranceId);
+                complete(utteranceId);
+            }
+
+            @Override
+            public void onStop(String utteranceId, boolean interrupted) {
+                complete(utteranceId);
+            }
+        });
+        ready = true;
+        Log.d(TAG, "✅ Local TextToSpeech ready");
+    }
+
+    /** Speaks {@code text} and runs {@code onDone} once it finished or failed. Returns false if the engine is not ready. */
+    public synchronized boolean speak(String text, String utteranceId, Runnable onDone) {
+        if (!ready || tts == null) {
+            return false;
+        }
+        pending.put(utteranceId, onDone);
+        if (tts.speak(text, TextToSpeech.QUEUE_FLUSH, null, utteranceId) != TextToSpeech.SUCCESS) {
+            pending.remove(utteranceId);
+            return false;
+        }
+        return true;
+    }
+
+    public synchronized void stop() {
+        if (tts != null) {
+            tts.stop();
+        }
+    }
+
+    private void complete(String utteranceId) {
+        Runnable onDone = pending.remove(utteranceId);
+        if (onDone != null) {
+            onDone.run();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.biopeakai.performance;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process hand-off of accepted fixes from {@link BioPeakLocationService} to the plugin, without a
+ * broadcast or a Parcel. A single-producer ring of fixed-size slots: the location thread writes a slot
+ * and then publishes its sequence number; a reader copies slots out. Each slot carries a stamp, cleared
+ * before the slot is rewritten and set to the fix's sequence last, which the reader checks before and after
+ * its copy. Slot fields are stored in atomic arrays so those checks are ordered with the copy (VarHandle
+ * fences need API 33). Sequence numbers let the reader count fixes it missed.
+ */
+public final class LocationChannel {
+    private static final int CAPACITY = 256; // power of two
+    private static final int MASK = CAPACITY - 1;
+
+    // Field offsets within a slot; doubles and floats are stored as their raw bits
+    private static final int LATITUDE = 0;
+    private static final int LONGITUDE = 1;
+    private static final int ALTITUDE = 2;
+    private static final int TOTAL_DISTANCE = 3;
+    private static final int ACCURACY = 4;
+    private static final int SPEED = 5;
+    private static final int HEADING = 6;
+    private static final int DISTANCE_INCREMENT = 7;
+    private static final int TIMESTAMP = 8;
+    private static final int MOVING_TIME = 9;
+    private static final int CURRENT_PACE = 10;
+    private static final int AVERAGE_PACE = 11;
+    private static final int MOVING_PACE = 12;
+    private static final int ELEVATION_GAIN = 13;
+    private static final int ELEVATION_LOSS = 14;
+    private static final int PUBLISH_NANOS = 15;
+    private static final int FIELDS = 16;
+    private static final long WRITING = -1;
+
+    /** Called on the producer thread after each publish; implementations should only schedule a read. */
+    public interface Subscriber {
+        void onFixesAvailable();
+    }
+
+    private static final LocationChannel instance = new LocationChannel();
+
+    private final AtomicLongArray slots = new AtomicLongArray(CAPACITY * FIELDS);
+    // Sequence of the fix each slot holds, or WRITING while the producer rewrites it
+    private final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+
+    // Sequence of the next fix to be written; everything below it is readable
+    private volatile long published = 0;
+    private volatile Subscriber subscriber;
+
+    public static LocationChannel getInstance() {
+        return instance;
+    }
+
+    private LocationChannel() {
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            stamps.set(slot, WRITING);
+        }
+    }
+
+    public boolean hasSubscriber() {
+        return subscriber != null;
+    }
+
+    /** Attaches the reader and returns the sequence it should start reading from. */
+    public long subscribe(Subscriber subscriber) {
+        this.subscriber = subscriber;
+        return published;
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        if (this.subscriber == subscriber) {
+            this.subscriber = null;
+        }
+    }
+
+    /** Producer side; only ever called from the location pipeline thread. */
+    public void publish(LocationData fix) {
+        long seq = published;
+        int slot = (int) (seq & MASK);
+        int base = slot * FIELDS;
+        stamps.set(slot, WRITING);
+        putDouble(base + LATITUDE, fix.latitude);
+        putDouble(base + LONGITUDE, fix.longitude);
+        putDouble(base + ALTITUDE, fix.altitude);
+        putDouble(base + TOTAL_DISTANCE, fix.totalDistance);
+        putFloat(base + ACCURACY, fix.accuracy);
+        putFloat(base + SPEED, fix.speed);
+        putFloat(base + HEADING, fix.heading);
+        putFloat(base + DISTANCE_INCREMENT, fix.distanceIncrement);
+        slots.set(base + TIMESTAMP, fix.timestamp);
+        slots.set(base + MOVING_TIME, fix.movingTime);
+        putFloat(base + CURRENT_PACE, fix.currentPace);
+        putFloat(base + AVERAGE_PACE, fix.averagePace);
+        putFloat(base + MOVING_PACE, fix.movingPace);
+        putFloat(base + ELEVATION_GAIN, fix.elevationGain);
+        putFloat(base + ELEVATION_LOSS, fix.elevationLoss);
+        slots.set(base + PUBLISH_NANOS, System.nanoTime());
+        stamps.set(slot, seq);
+        published = seq + 1;
+
+        Subscriber current = subscriber;
+        if (current != null) {
+            current.onFixesAvailable();
+        }
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * Copies fix {@code seq} into {@code out}. Returns false if it is not published yet or was already
+     * overwritten; callers skip ahead to {@link #oldestAvailable()} in the latter case.
+     */
+    public boolean read(long seq, LocationData out) {
+        if (seq >= published) {
+            return false;
+        }
+        int slot = (int) (seq & MASK);
+        if (stamps.get(slot) != seq) {
+            return false;
+        }
+        int base = slot * FIELDS;
+        out.latitude = getDouble(base + LATITUDE);
+        out.longitude = getDouble(base + LONGITUDE);
+        out.altitude = getDouble(base + ALTITUDE);
+        out.totalDistance = getDouble(base + TOTAL_DISTANCE);
+        out.accuracy = getFloat(base + ACCURACY);
+        out.speed = getFloat(base + SPEED);
+        out.heading = getFloat(base + HEADING);
+        out.distanceIncrement = getFloat(base + DISTANCE_INCREMENT);
+        out.timestamp = slots.get(base + TIMESTAMP);
+        out.movingTime = slots.get(base + MOVING_TIME);
+        out.currentPace = getFloat(base + CURRENT_PACE);
+        out.averagePace = getFloat(base + AVERAGE_PACE);
+        out.movingPace = getFloat(base + MOVING_PACE);
+        out.elevationGain = getFloat(base + ELEVATION_GAIN);
+        out.elevationLoss = getFloat(base + ELEVATION_LOSS);
+        // The producer may have lapped us while we copied
+        return stamps.get(slot) == seq;
+    }
+
+    /** {@link System#nanoTime()} at which fix {@code seq} was published; only meaningful right after a successful read. */
+    public long getPublishNanos(long seq) {
+        return slots.get((int) (seq & MASK) * FIELDS + PUBLISH_NANOS);
+    }
+
+    private void putDouble(int index, double value) {
+        slots.set(index, Double.doubleToRawLongBits(value));
+    }
+
+    private void putFloat(int index, float value) {
+        slots.set(index, Float.floatToRawIntBits(value));
+    }
+
+    private double getDouble(int index) {
+        return Double.longBitsToDouble(slots.get(index));
+    }
+
+    private float getFloat(int index) {
+        return Float.intBitsToFloat((int) slots.get(index));
+    }
+
+    public long oldestAvailable() {
+        // Keep one slot of slack: the producer writes slot `published` before publishing it
+        return Math.max(0, published - CAPACITY + 1);
+    }
+}
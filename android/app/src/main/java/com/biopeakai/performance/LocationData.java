@@ -13,6 +13,13 @@ public class LocationData implements Parcelable {
     public float distanceIncrement;
     public double totalDistance;
     public long timestamp;
+    public long movingTime; // ms, excluding auto-pauses
+    // Seconds per km, 0 when not known yet: over the last stretch, since the start, over moving time
+    public float currentPace;
+    public float averagePace;
+    public float movingPace;
+    public float elevationGain; // m this session
+    public float elevationLoss;
     
     public LocationData() {}
     
@@ -26,6 +33,12 @@ public class LocationData implements Parcelable {
         distanceIncrement = in.readFloat();
         totalDistance = in.readDouble();
         timestamp = in.readLong();
+        movingTime = in.readLong();
+        currentPace = in.readFloat();
+        averagePace = in.readFloat();
+        movingPace = in.readFloat();
+        elevationGain = in.readFloat();
+        elevationLoss = in.readFloat();
     }
     
     @Override
@@ -39,6 +52,12 @@ public class LocationData implements Parcelable {
         dest.writeFloat(distanceIncrement);
         dest.writeDouble(totalDistance);
         dest.writeLong(timestamp);
+        dest.writeLong(movingTime);
+        dest.writeFloat(currentPace);
+        dest.writeFloat(averagePace);
+        dest.writeFloat(movingPace);
+        dest.writeFloat(elevationGain);
+        dest.writeFloat(elevationLoss);
     }
     
     @Override
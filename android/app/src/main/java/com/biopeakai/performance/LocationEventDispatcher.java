@@ -0,0 +1,177 @@
+package com.biopeakai.performance;
+
+import android.os.Handler;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+/**
+ * Delivers location fixes to the WebView in one of three modes chosen by JS per session:
+ * <ul>
+ *   <li>{@code immediate}: one {@code locationUpdate} per fix (the default).</li>
+ *   <li>{@code latest}: at most one {@code locationUpdate} per interval, carrying the newest fix and the
+ *       distance accumulated by every fix it replaces.</li>
+ *   <li>{@code batched}: one {@code locationBatch} per interval with every fix since the last one.</li>
+ * </ul>
+ * Must be used from the handler's thread. Fix slots and their JSObjects are reused between events;
+ * the bridge serializes an event synchronously inside notifyListeners, so that is safe.
+ */
+public class LocationEventDispatcher {
+    public static final String MODE_IMMEDIATE = "immediate";
+    public static final String MODE_LATEST = "latest";
+    public static final String MODE_BATCHED = "batched";
+
+    public static final String EVENT_UPDATE = "locationUpdate";
+    public static final String EVENT_BATCH = "locationBatch";
+
+    private static final long DEFAULT_INTERVAL_MS = 2000;
+    private static final long MIN_INTERVAL_MS = 250;
+    // A batch never grows past this; older fixes are dropped first if the bridge falls behind
+    private static final int MAX_BATCH = 64;
+
+    public interface Sink {
+        void emit(String eventName, JSObject data);
+    }
+
+    private final Handler handler;
+    private final Sink sink;
+    private final LocationData[] slots = new LocationData[MAX_BATCH];
+    private final JSObject[] slotJson = new JSObject[MAX_BATCH];
+    private final JSObject batchJson = new JSObject();
+    private final Runnable flushTask = this::flush;
+
+    private String mode = MODE_IMMEDIATE;
+    private long intervalMs = DEFAULT_INTERVAL_MS;
+    private int head = 0;
+    private int count = 0;
+    private float pendingDistance = 0f;
+    private boolean flushScheduled = false;
+
+    public LocationEventDispatcher(Handler handler, Sink sink) {
+        this.handler = handler;
+        this.sink = sink;
+        for (int i = 0; i < MAX_BATCH; i++) {
+            slots[i] = new LocationData();
+            slotJson[i] = new JSObject();
+        }
+    }
+
+    /** Returns false for an unknown mode. Pending fixes are delivered before switching. */
+    public boolean configure(String mode, Long intervalMs) {
+        if (!MODE_IMMEDIATE.equals(mode) && !MODE_LATEST.equals(mode) && !MODE_BATCHED.equals(mode)) {
+            return false;
+        }
+        flush();
+        this.mode = mode;
+        this.intervalMs = intervalMs != null ? Math.max(MIN_INTERVAL_MS, intervalMs) : DEFAULT_INTERVAL_MS;
+        return true;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public void dispatch(LocationData fix) {
+        if (MODE_IMMEDIATE.equals(mode)) {
+            sink.emit(EVENT_UPDATE, toJson(fix, fix.distanceIncrement, slotJson[0]));
+            return;
+        }
+
+        pendingDistance += fix.distanceIncrement;
+        if (MODE_LATEST.equals(mode)) {
+            copy(fix, slots[0]);
+            count = 1;
+        } else {
+            int tail = (head + count) % MAX_BATCH;
+            copy(fix, slots[tail]);
+            if (count == MAX_BATCH) {
+                head = (head + 1) % MAX_BATCH;
+            } else {
+                count++;
+            }
+        }
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(flushTask, intervalMs);
+        }
+    }
+
+    /** Delivers whatever is pending right away, e.g. when tracking stops. */
+    public void flush() {
+        if (flushScheduled) {
+            handler.removeCallbacks(flushTask);
+            flushScheduled = false;
+        }
+        if (count == 0) return;
+
+        if (MODE_LATEST.equals(mode)) {
+            sink.emit(EVENT_UPDATE, toJson(slots[0], pendingDistance, slotJson[0]));
+        } else {
+            JSArray fixes = new JSArray();
+            for (int i = 0; i < count; i++) {
+                int slot = (head + i) % MAX_BATCH;
+                fixes.put(toJson(slots[slot], slots[slot].distanceIncrement, slotJson[slot]));
+            }
+            batchJson.put("fixes", fixes);
+            batchJson.put("distance", pendingDistance);
+            batchJson.put("totalDistance", slots[(head + count - 1) % MAX_BATCH].totalDistance);
+            sink.emit(EVENT_BATCH, batchJson);
+        }
+        head = 0;
+        count = 0;
+        pendingDistance = 0f;
+    }
+
+    /** Drops pending fixes and returns to immediate delivery for the next session. */
+    public void reset() {
+        handler.removeCallbacks(flushTask);
+        flushScheduled = false;
+        head = 0;
+        count = 0;
+        pendingDistance = 0f;
+        mode = MODE_IMMEDIATE;
+        intervalMs = DEFAULT_INTERVAL_MS;
+    }
+
+    private static JSObject toJson(LocationData data, float distance, JSObject json) {
+        json.put("latitude", data.latitude);
+        json.put("longitude", data.longitude);
+        json.put("accuracy", data.accuracy);
+        json.put("altitude", data.altitude);
+        json.put("speed", data.speed);
+        json.put("heading", data.heading);
+        json.put("distance", distance);
+        json.put("totalDistance", data.totalDistance);
+        json.put("timestamp", data.timestamp);
+        json.put("movingTime", data.movingTime);
+        json.put("currentPace", data.currentPace);
+        json.put("averagePace", data.averagePace);
+        json.put("movingPace", data.movingPace);
+        json.put("elevationGain", data.elevationGain);
+        json.put("elevationLoss", data.elevationLoss);
+        return json;
+    }
+
+    private static void copy(LocationData from, LocationData to) {
+        to.latitude = from.latitude;
+        to.longitude = from.longitude;
+        to.accuracy = from.accuracy;
+        to.altitude = from.altitude;
+        to.speed = from.speed;
+        to.heading = from.heading;
+        to.distanceIncrement = from.distanceIncrement;
+        to.totalDistance = from.totalDistance;
+        to.timestamp = from.timestamp;
+        to.movingTime = from.movingTime;
+        to.currentPace = from.currentPace;
+        to.averagePace = from.averagePace;
+        to.movingPace = from.movingPace;
+        to.elevationGain = from.elevationGain;
+        to.elevationLoss = from.elevationLoss;
+    }
+}
@@ -0,0 +1,133 @@
+package com.biopeakai.performance;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket latency histograms for each stage between a GPS fix and the runner hearing a cue.
+ * Recording is a bucket search and three atomic adds - no allocation - so it can sit on the fix path.
+ * Percentiles are reported as the upper bound of the bucket they fall in.
+ */
+public final class PerformanceStats {
+    public static final int FIX_TO_CALLBACK = 0;   // fix timestamp (elapsed realtime) to our callback
+    public static final int FILTER = 1;            // LocationFilter.process
+    public static final int DELIVERY = 2;          // service publish to the plugin handing it to the bridge
+    public static final int TTS_REQUEST = 3;       // TTS request sent to response headers
+    public static final int TTS_DECODE = 4;        // streaming the body into an audio buffer
+    public static final int PLAYER_PREPARE = 5;    // MediaPlayer.prepareAsync to start
+    public static final int CUE_TOTAL = 6;         // cue begun to its first audio actually playing
+    public static final int UPLOAD = 7;            // one snapshot batch POST
+    private static final String[] STAGE_NAMES = {
+        "fixToCallback", "filter", "delivery", "ttsRequest", "ttsDecode", "playerPrepare", "cueTotal", "upload"
+    };
+
+    // Upper bounds in microseconds; the last bucket is open-ended
+    private static final long[] BOUNDS_US = {
+        50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000,
+        500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, 30_000_000
+    };
+    private static final int BUCKETS = BOUNDS_US.length + 1;
+
+    private static final AtomicLongArray counts = new AtomicLongArray(STAGE_NAMES.length * BUCKETS);
+    private static final AtomicLongArray totalUs = new AtomicLongArray(STAGE_NAMES.length);
+    private static final AtomicLongArray maxUs = new AtomicLongArray(STAGE_NAMES.length);
+    private static final AtomicLong sinceMs = new AtomicLong(System.currentTimeMillis());
+
+    private PerformanceStats() {}
+
+    public static void recordNanos(int stage, long nanos) {
+        if (nanos < 0) return; // clock skew between sources, e.g. a fix stamped in the future
+        long us = nanos / 1000;
+        int bucket = 0;
+        while (bucket < BOUNDS_US.length && us > BOUNDS_US[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(stage * BUCKETS + bucket);
+        totalUs.addAndGet(stage, us);
+        long max;
+        while (us > (max = maxUs.get(stage)) && !maxUs.compareAndSet(stage, max, us)) {
+            // retry
+        }
+    }
+
+    /** Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} reading). */
+    public static void recordSince(int stage, long startNanos) {
+        recordNanos(stage, System.nanoTime() - startNanos);
+    }
+
+    /** Starts a new measurement window, e.g. at the start of a session. */
+    public static void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        for (int i = 0; i < STAGE_NAMES.length; i++) {
+            totalUs.set(i, 0);
+            maxUs.set(i, 0);
+        }
+        sinceMs.set(System.currentTimeMillis());
+    }
+
+    public static int stageCount() {
+        return STAGE_NAMES.length;
+    }
+
+    public static String stageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    public static long getSinceMs() {
+        return sinceMs.get();
+    }
+
+    /** Bucket upper bounds in milliseconds; the extra last bucket has no bound. */
+    public static double[] bucketBoundsMs() {
+        double[] bounds = new double[BOUNDS_US.length];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = BOUNDS_US[i] / 1000.0;
+        }
+        return bounds;
+    }
+
+    public static long[] getBuckets(int stage) {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(stage * BUCKETS + i);
+        }
+        return buckets;
+    }
+
+    public static long getCount(int stage) {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(stage * BUCKETS + i);
+        }
+        return count;
+    }
+
+    public static double getMeanMs(int stage) {
+        long count = getCount(stage);
+        return count > 0 ? totalUs.get(stage) / 1000.0 / count : 0;
+    }
+
+    public static double getMaxMs(int stage) {
+        return maxUs.get(stage) / 1000.0;
+    }
+
+    /** Upper bound (ms) of the bucket holding the given quantile, or the max for the open bucket. */
+    public static double getPercentileMs(int stage, double quantile) {
+        long[] buckets = getBuckets(stage);
+        long count = 0;
+        for (long b : buckets) count += b;
+        if (count == 0) return 0;
+
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_US.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(BOUNDS_US[i], maxUs.get(stage)) / 1000.0;
+            }
+        }
+        return getMaxMs(stage);
+    }
+}
@@ -0,0 +1,264 @@
+package com.biopeakai.performance;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Shared audio playback for the plugins and the service. Plays the segments of one spoken cue back to
+ * back: segments can be enqueued while earlier ones are already playing, so a pre-synthesized prefix
+ * starts immediately while the dynamic part is still being synthesized. The listener fires once
+ * {@link #finish()} was called and every segment played.
+ *
+ * In-memory clips play through a {@link BufferMediaDataSource}; only clips above
+ * {@link #MAX_IN_MEMORY_BYTES} are spilled to a temp file, which is deleted after playback.
+ * Speech clips are spoken by {@link LocalSpeech} in the same queue.
+ */
+public class SequentialAudioPlayer {
+    private static final String TAG = "BP/CuePlayer";
+    private static final int MAX_IN_MEMORY_BYTES = 1024 * 1024;
+
+    public interface Listener {
+        void onSequenceComplete();
+    }
+
+    private final Context context;
+    private final LocalSpeech localSpeech;
+    private final ArrayDeque<AudioClip> queue = new ArrayDeque<>();
+    private MediaPlayer current;
+    private AudioClip currentSpeech;
+    private String currentUtteranceId;
+    private int utteranceCount = 0;
+    private BufferMediaDataSource currentSource;
+    private File currentSpillFile;
+    private long cueBeginNanos;
+    private boolean cueStarted = true;
+    private long prepareStartNanos;
+    private boolean finished = true;
+    private boolean paused = false;
+    private Listener listener;
+
+    public SequentialAudioPlayer(Context context) {
+        this.context = context.getApplicationContext();
+        this.localSpeech = LocalSpeech.getInstance(context);
+    }
+
+    /** Starts a new cue, cutting off whatever is still playing. */
+    public synchronized void begin(Listener listener) {
+        releaseCurrent();
+        clearQueue();
+        finished = false;
+        paused = false;
+        this.listener = listener;
+        cueBeginNanos = System.nanoTime();
+        cueStarted = false;
+    }
+
+    /** Takes ownership of the clip (and its buffer reference). */
+    public synchronized void enqueue(AudioClip segment) {
+        queue.add(segment);
+        if (isIdle()) {
+            playNext();
+        }
+    }
+
+    /** Marks the cue as complete: no more segments will be enqueued. */
+    public synchronized void finish() {
+        finished = true;
+        if (isIdle()) {
+            playNext();
+        }
+    }
+
+    /** Convenience for one-shot playback of a single clip. */
+    public synchronized void play(AudioClip clip, Listener listener) {
+        begin(listener);
+        enqueue(clip);
+        finish();
+    }
+
+    public synchronized void pause() {
+        paused = true;
+        if (current != null && current.isPlaying()) {
+            current.pause();
+        }
+        if (currentSpeech != null) {
+            // TextToSpeech cannot pause: speak the segment again from the start on resume
+            queue.addFirst(currentSpeech);
+            currentSpeech = null;
+            localSpeech.stop();
+        }
+    }
+
+    public synchronized void resume() {
+        paused = false;
+        if (current != null && !current.isPlaying()) {
+            current.start();
+            markCueStarted();
+        } else if (isIdle()) {
+            playNext();
+        }
+    }
+
+    public synchronized void stop() {
+        releaseCurrent();
+        clearQueue();
+        finished = true;
+        paused = false;
+        listener = null;
+    }
+
+    private void playNext() {
+        AudioClip next = queue.poll();
+        if (next == null) {
+            if (finished && listener != null) {
+                Listener done = listener;
+                listener = null;
+                done.onSequenceComplete();
+            }
+            return;
+        }
+
+        if (next.getSpeechText() != null) {
+            speak(next);
+            return;
+        }
+
+        MediaPlayer player = new MediaPlayer();
+        current = player;
+        try {
+            setDataSource(player, next);
+            player.setAudioAttributes(
+                new AudioAttributes.Builder()
+                    .setContentType(AudioAttributes.CONTENT_TYPE_SPEECH)
+                    .setUsage(AudioAttributes.USAGE_MEDIA)
+                    .build()
+            );
+            player.setOnPreparedListener(this::onSegmentPrepared);
+            player.setOnCompletionListener(this::onSegmentDone);
+            player.setOnErrorListener((mp, what, extra) -> {
+                Log.e(TAG, "❌ Audio error: " + what + ", " + extra);
+                onSegmentDone(mp);
+                return true;
+            });
+            prepareStartNanos = System.nanoTime();
+            player.prepareAsync();
+            Log.d(TAG, "🔊 Preparing segment: " + next);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Error playing segment: " + e.getMessage(), e);
+            releaseCurrent();
+            playNext();
+        }
+    }
+
+    private void setDataSource(MediaPlayer player, AudioClip clip) throws IOException {
+        AudioBuffer buffer = clip.getBuffer();
+        if (buffer != null) {
+            if (buffer.length() <= MAX_IN_MEMORY_BYTES) {
+                currentSource = new BufferMediaDataSource(buffer);
+                player.setDataSource(currentSource);
+                return;
+            }
+            // Too large to keep pinned in memory for the whole playback
+            try {
+                currentSpillFile = File.createTempFile("biopeak_audio", ".mp3", context.getCacheDir());
+                try (FileOutputStream out = new FileOutputStream(currentSpillFile)) {
+                    out.write(buffer.array(), 0, buffer.length());
+                }
+            } finally {
+                buffer.release();
+            }
+            player.setDataSource(currentSpillFile.getAbsolutePath());
+        } else if (clip.getFile() != null) {
+            player.setDataSource(clip.getFile().getAbsolutePath());
+        } else {
+            player.setDataSource(clip.getUrl());
+        }
+    }
+
+    private void speak(AudioClip clip) {
+        if (paused) {
+            queue.addFirst(clip);
+            return;
+        }
+        currentSpeech = clip;
+        String utteranceId = "cue-" + (++utteranceCount);
+        currentUtteranceId = utteranceId;
+        if (localSpeech.speak(clip.getSpeechText(), utteranceId, () -> onSpeechDone(utteranceId))) {
+            markCueStarted();
+            Log.d(TAG, "🗣️ Speaking segment locally: " + clip);
+        } else {
+            Log.e(TAG, "❌ Local speech unavailable, skipping: " + clip);
+            currentSpeech = null;
+            playNext();
+        }
+    }
+
+    private synchronized void onSpeechDone(String utteranceId) {
+        // Ignore utterances that were stopped by pause() or a newer cue
+        if (currentSpeech == null || !utteranceId.equals(currentUtteranceId)) return;
+        currentSpeech = null;
+        playNext();
+    }
+
+    private void markCueStarted() {
+        if (!cueStarted) {
+            cueStarted = true;
+            PerformanceStats.recordSince(PerformanceStats.CUE_TOTAL, cueBeginNanos);
+        }
+    }
+
+    private boolean isIdle() {
+        return current == null && currentSpeech == null;
+    }
+
+    private synchronized void onSegmentPrepared(MediaPlayer mp) {
+        if (mp != current) return;
+        PerformanceStats.recordSince(PerformanceStats.PLAYER_PREPARE, prepareStartNanos);
+        if (paused) return;
+        mp.start();
+        markCueStarted();
+        Log.d(TAG, "▶️ Segment started");
+    }
+
+    private synchronized void onSegmentDone(MediaPlayer mp) {
+        if (mp != current) {
+            // A newer cue already replaced (and released) this player
+            return;
+        }
+        releaseCurrent();
+        playNext();
+    }
+
+    private void releaseCurrent() {
+        if (currentSpeech != null) {
+            currentSpeech = null;
+            localSpeech.stop();
+        }
+        if (current != null) {
+            current.release();
+            current = null;
+        }
+        if (currentSource != null) {
+            currentSource.close();
+            currentSource = null;
+        }
+        if (currentSpillFile != null) {
+            currentSpillFile.delete();
+            currentSpillFile = null;
+        }
+    }
+
+    private void clearQueue() {
+        AudioClip clip;
+        while ((clip = queue.poll()) != null) {
+            clip.release();
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.biopeakai.performance;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkRequest;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Durable outbox for performance_snapshots rows.
+ *
+ * Rows are appended to a JSON-lines file and only removed once PostgREST has accepted them, so
+ * nothing is lost when a trail run has no signal. Pending rows are coalesced into array bulk inserts;
+ * each row carries a client-generated id and the insert ignores duplicates, which makes retrying
+ * a batch whose response was lost harmless.
+ *
+ * All file and network work runs on the outbox's own single thread.
+ */
+public class SnapshotOutbox {
+    private static final String TAG = "BP/SnapshotOutbox";
+    private static final String FILE_NAME = "snapshot_outbox.jsonl";
+    private static final String DEAD_LETTER_FILE_NAME = "snapshot_outbox_failed.jsonl";
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private static final int MAX_BATCH = 50;
+    // Hold rows back until a few have accumulated so one radio wake-up carries several milestones
+    private static final int FLUSH_THRESHOLD = 4;
+    private static final long MAX_HOLD_MS = 5 * 60 * 1000L;
+    private static final long BACKOFF_BASE_MS = 2_000;
+    private static final long BACKOFF_MAX_MS = 5 * 60 * 1000L;
+
+    private static SnapshotOutbox instance;
+
+    private final File file;
+    private final File deadLetterFile;
+    private final ConnectivityManager connectivityManager;
+    private final ScheduledExecutorService executor;
+    private final Random jitter = new Random();
+
+    private final OkHttpClient httpClient;
+    private String supabaseUrl;
+    private String supabaseAnonKey;
+    private String userToken;
+
+    // Outbox thread state
+    private int pendingCount = -1;
+    private int batchLimit = MAX_BATCH;
+    private int failedAttempts = 0;
+    private boolean waitingForNetwork = false;
+    private ScheduledFuture<?> scheduledDrain;
+
+    public static synchronized SnapshotOutbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new SnapshotOutbox(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SnapshotOutbox(Context context) {
+        file = new File(context.getFilesDir(), FILE_NAME);
+        deadLetterFile = new File(context.getFilesDir(), DEAD_LETTER_FILE_NAME);
+        connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "BP-SnapshotOutbox"));
+        httpClient = SupabaseHttp.client();
+
+        if (connectivityManager != null) {
+            NetworkRequest request = new NetworkRequest.Builder()
+                .addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
+            connectivityManager.registerNetworkCallback(request, new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    executor.execute(() -> {
+                        if (waitingForNetwork) {
+                            Log.d(TAG, "📶 Network available - draining outbox");
+                            waitingForNetwork = false;
+                            failedAttempts = 0;
+                            scheduleDrain(0);
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /** Updates the credentials used for uploads and retries anything left over from earlier sessions. */
+    public void setCredentials(String supabaseUrl, String supabaseAnonKey, String userToken) {
+        executor.execute(() -> {
+            this.supabaseUrl = supabaseUrl;
+            this.supabaseAnonKey = supabaseAnonKey;
+            this.userToken = userToken;
+            if (pendingCount() > 0) {
+                scheduleDrain(0);
+            }
+        });
+    }
+
+    /** Persists one snapshot row. Missing optional columns must be present as JSONObject.NULL so batches stay uniform. */
+    public void enqueue(JSONObject row) {
+        executor.execute(() -> {
+            try {
+                if (!row.has("id")) {
+                    row.put("id", UUID.randomUUID().toString());
+                }
+                try (FileOutputStream out = new FileOutputStream(file, true)) {
+                    out.write((row.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.getFD().sync();
+                }
+                int pending = pendingCount() + 1;
+                pendingCount = pending;
+                Log.d(TAG, "📥 Snapshot queued (" + pending + " pending)");
+
+                if (pending >= FLUSH_THRESHOLD) {
+                    scheduleDrain(0);
+                } else if (scheduledDrain == null) {
+                    scheduleDrain(MAX_HOLD_MS);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Could not queue snapshot: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /** Drains everything pending as soon as possible, e.g. when the session ends. */
+    public void flush() {
+        executor.execute(() -> {
+            if (pendingCount() > 0) {
+                scheduleDrain(0);
+            }
+        });
+    }
+
+    // MARK: - Outbox thread
+
+    private void scheduleDrain(long delayMs) {
+        if (scheduledDrain != null) {
+            if (scheduledDrain.getDelay(TimeUnit.MILLISECONDS) <= delayMs) return;
+            scheduledDrain.cancel(false);
+        }
+        scheduledDrain = executor.schedule(this::drain, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void drain() {
+        scheduledDrain = null;
+
+        if (supabaseUrl == null || supabaseAnonKey == null || userToken == null) {
+            Log.w(TAG, "⚠️ Outbox drain deferred: credentials not configured");
+            return;
+        }
+        if (!isOnline()) {
+            waitingForNetwork = true;
+            Log.d(TAG, "📵 Offline - outbox will drain when the network returns");
+            return;
+        }
+
+        List<String> batch;
+        try {
+            batch = readBatch(batchLimit);
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Could not read outbox: " + e.getMessage(), e);
+            return;
+        }
+        if (batch.isEmpty()) {
+            pendingCount = 0;
+            return;
+        }
+
+        // A line torn by a crash mid-append can never upload: dead-letter it now rather than retry it forever
+        JSONArray rows = new JSONArray();
+        boolean[] corrupt = new boolean[batch.size()];
+        int corruptCount = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                rows.put(new JSONObject(batch.get(i)));
+            } catch (JSONException e) {
+                corrupt[i] = true;
+                corruptCount++;
+            }
+        }
+        if (corruptCount > 0) {
+            try {
+                removeLines(corrupt, true);
+            } catch (IOException e) {
+                Log.e(TAG, "❌ Could not update outbox: " + e.getMessage(), e);
+                return;
+            }
+            Log.e(TAG, "❌ " + corruptCount + " unreadable snapshot row(s) moved to " + DEAD_LETTER_FILE_NAME);
+            if (pendingCount > 0) scheduleDrain(0);
+            return;
+        }
+
+        int code;
+        try {
+            code = postBatch(rows);
+        } catch (IOException e) {
+            TraceLog.record(TraceLog.UPLOAD, 0, batch.size(), 0f);
+            Log.w(TAG, "⚠️ Outbox upload failed: " + e.getMessage());
+            retryLater();
+            return;
+        }
+        TraceLog.record(TraceLog.UPLOAD, code, batch.size(), 0f);
+
+        try {
+            if (code >= 200 && code < 300) {
+                removeHead(batch.size(), false);
+                Log.d(TAG, "✅ Uploaded " + batch.size() + " snapshot(s), " + pendingCount + " pending");
+                failedAttempts = 0;
+                batchLimit = MAX_BATCH;
+                if (pendingCount > 0) scheduleDrain(0);
+            } else if (code == 401 || code == 403) {
+                // Token expired - keep the rows until the next configureFeedback brings a fresh one
+                userToken = null;
+                Log.w(TAG, "⚠️ Outbox upload unauthorized (" + code + ") - waiting for new credentials");
+            } else if (code == 408 || code == 429 || code >= 500) {
+                Log.w(TAG, "⚠️ Outbox upload failed with " + code + " - retrying");
+                retryLater();
+            } else if (batch.size() > 1) {
+                // A row in the batch is rejected: bisect until the offending row is isolated
+                batchLimit = Math.max(1, batch.size() / 2);
+                Log.w(TAG, "⚠️ Batch rejected (" + code + ") - retrying with " + batchLimit + " rows");
+                scheduleDrain(0);
+            } else {
+                removeHead(1, true);
+                batchLimit = MAX_BATCH;
+                Log.e(TAG, "❌ Snapshot rejected (" + code + ") - moved to " + DEAD_LETTER_FILE_NAME);
+                if (pendingCount > 0) scheduleDrain(0);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "❌ Could not update outbox: " + e.getMessage(), e);
+        }
+    }
+
+    private int postBatch(JSONArray rows) throws IOException {
+        Request request = new Request.Builder()
+            .url(supabaseUrl + "/rest/v1/performance_snapshots?on_conflict=id")
+            .post(RequestBody.create(rows.toString(), JSON))
+            .addHeader("Content-Type", "application/json")
+            .addHeader("apikey", supabaseAnonKey)
+            .addHeader("Authorization", "Bearer " + userToken)
+            .addHeader("Prefer", "return=minimal,resolution=ignore-duplicates")
+            .build();
+
+        long start = System.nanoTime();
+        try (Response response = httpClient.newCall(request).execute()) {
+            PerformanceStats.recordSince(PerformanceStats.UPLOAD, start);
+            return response.code();
+        }
+    }
+
+    private void retryLater() {
+        if (!isOnline()) {
+            waitingForNetwork = true;
+            return;
+        }
+        // Full jitter so many phones coming back online do not retry in lockstep
+        long ceiling = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(failedAttempts, 16));
+        long delay = BACKOFF_BASE_MS / 2 + (long) (jitter.nextDouble() * ceiling);
+        failedAttempts++;
+        Log.d(TAG, "⏳ Outbox retry #" + failedAttempts + " in " + delay + "ms");
+        scheduleDrain(delay);
+    }
+
+    private boolean isOnline() {
+        if (connectivityManager == null) return true;
+        Network network = connectivityManager.getActiveNetwork();
+        if (network == null) return false;
+        NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(network);
+        return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    private int pendingCount() {
+        if (pendingCount < 0) {
+            try {
+                pendingCount = readBatch(Integer.MAX_VALUE).size();
+            } catch (IOException e) {
+                pendingCount = 0;
+            }
+        }
+        return pendingCount;
+    }
+
+    private List<String> readBatch(int limit) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!file.exists()) return lines;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while (lines.size() < limit && (line = reader.readLine()) != null) {
+                if (!line.isEmpty()) lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void removeHead(int count, boolean deadLetter) throws IOException {
+        boolean[] head = new boolean[count];
+        Arrays.fill(head, true);
+        removeLines(head, deadLetter);
+    }
+
+    /** Removes the lines flagged in {@code remove}, which covers the head of the file. */
+    private void removeLines(boolean[] remove, boolean deadLetter) throws IOException {
+        List<String> all = readBatch(Integer.MAX_VALUE);
+        List<String> removed = new ArrayList<>();
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < all.size(); i++) {
+            if (i < remove.length && remove[i]) {
+                removed.add(all.get(i));
+            } else {
+                kept.add(all.get(i));
+            }
+        }
+
+        if (deadLetter) {
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(deadLetterFile, true), StandardCharsets.UTF_8)) {
+                for (String line : removed) {
+                    out.write(line);
+                    out.write('\n');
+                }
+            }
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (String line : kept) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not replace outbox file");
+        }
+        pendingCount = kept.size();
+    }
+}
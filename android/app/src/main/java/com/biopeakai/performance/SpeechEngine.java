@@ -0,0 +1,206 @@
+package com.biopeakai.performance;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkCapabilities;
+import android.util.Log;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Turns cue text into a playable clip within a per-cue deadline. Serves the TTS cache first, then the
+ * cloud voice, and falls back to the on-device {@link LocalSpeech} when the network is down or the cloud
+ * misses the deadline. A cloud request that misses the deadline keeps running and lands in the cache,
+ * so the same phrase uses the cloud voice next time.
+ */
+public class SpeechEngine {
+    private static final String TAG = "BP/SpeechEngine";
+
+    public static final String VOICE = "alloy";
+    public static final double SPEED = 1.0;
+    // A milestone cue is only useful within a few seconds of the milestone
+    public static final long CUE_DEADLINE_MS = 3000;
+
+    public static final int PATH_CACHE = 0;
+    public static final int PATH_CLOUD = 1;
+    public static final int PATH_LOCAL = 2;
+    private static final String[] PATH_NAMES = {"cache", "cloud", "local"};
+
+    private static SpeechEngine instance;
+
+    private final Context context;
+    private final TtsAudioCache cache;
+    private final LocalSpeech localSpeech;
+
+    private final AtomicLong[] servedCount = newCounters();
+    private final AtomicLong[] totalLatencyMs = newCounters();
+    private final AtomicLong[] maxLatencyMs = newCounters();
+    private final AtomicLong deadlineMisses = new AtomicLong();
+    private final AtomicLong cloudFailures = new AtomicLong();
+
+    public static synchronized SpeechEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new SpeechEngine(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SpeechEngine(Context context) {
+        this.context = context;
+        this.cache = TtsAudioCache.getInstance(context);
+        this.localSpeech = LocalSpeech.getInstance(context);
+    }
+
+    /** Binds the local engine ahead of time so a fallback cue does not pay for its startup. */
+    public void warmUp() {
+        localSpeech.warmUp();
+    }
+
+    /**
+     * Returns a clip for {@code text}, blocking at most until {@code cueStartMs + CUE_DEADLINE_MS}.
+     * Never fails: the worst case is a clip spoken by the local engine.
+     */
+    public AudioClip resolve(String text, long cueStartMs, CoachingScript.Synthesizer cloud) {
+        TraceLog.record(TraceLog.TTS_START, text.length());
+        File cached = cache.peek(text, VOICE, SPEED);
+        if (cached != null) {
+            record(PATH_CACHE, cueStartMs);
+            return AudioClip.of(cached);
+        }
+
+        if (!isOnline()) {
+            Log.w(TAG, "📴 Offline, speaking cue locally");
+            return local(text, cueStartMs);
+        }
+
+        CloudRequest request = new CloudRequest(text, cloud);
+        long remaining = cueStartMs + CUE_DEADLINE_MS - System.currentTimeMillis();
+        try {
+            Future<?> future = TaskScheduler.getInstance().submit(TaskScheduler.LANE_SYNTHESIS, request);
+            future.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+            AudioClip clip = request.take();
+            if (clip != null) {
+                record(PATH_CLOUD, cueStartMs);
+                return clip;
+            }
+            cloudFailures.incrementAndGet();
+        } catch (TimeoutException e) {
+            deadlineMisses.incrementAndGet();
+            Log.w(TAG, "⏱️ Cloud TTS missed the " + CUE_DEADLINE_MS + "ms deadline, speaking cue locally");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            cloudFailures.incrementAndGet();
+            Log.w(TAG, "⚠️ Cloud TTS failed, speaking cue locally: " + e.getCause().getMessage());
+        } catch (RejectedExecutionException e) {
+            cloudFailures.incrementAndGet();
+            Log.w(TAG, "⚠️ Synthesis lane saturated, speaking cue locally");
+        }
+        request.abandon();
+        return local(text, cueStartMs);
+    }
+
+    public long getServedCount(int path) {
+        return servedCount[path].get();
+    }
+
+    public long getAverageLatencyMs(int path) {
+        long count = servedCount[path].get();
+        return count > 0 ? totalLatencyMs[path].get() / count : 0;
+    }
+
+    public long getMaxLatencyMs(int path) {
+        return maxLatencyMs[path].get();
+    }
+
+    public long getDeadlineMisses() {
+        return deadlineMisses.get();
+    }
+
+    public long getCloudFailures() {
+        return cloudFailures.get();
+    }
+
+    public static String pathName(int path) {
+        return PATH_NAMES[path];
+    }
+
+    private AudioClip local(String text, long cueStartMs) {
+        record(PATH_LOCAL, cueStartMs);
+        return AudioClip.ofSpeech(text);
+    }
+
+    private void record(int path, long cueStartMs) {
+        long latency = System.currentTimeMillis() - cueStartMs;
+        servedCount[path].incrementAndGet();
+        totalLatencyMs[path].addAndGet(latency);
+        long max;
+        while (latency > (max = maxLatencyMs[path].get()) && !maxLatencyMs[path].compareAndSet(max, latency)) {
+            // retry
+        }
+        TraceLog.record(TraceLog.TTS_END, path, latency, 0f);
+        Log.d(TAG, "🗣️ Cue served by " + PATH_NAMES[path] + " in " + latency + "ms");
+    }
+
+    private boolean isOnline() {
+        ConnectivityManager connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null) return true;
+        NetworkCapabilities capabilities = connectivity.getNetworkCapabilities(connectivity.getActiveNetwork());
+        return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    private static AtomicLong[] newCounters() {
+        AtomicLong[] counters = new AtomicLong[PATH_NAMES.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new AtomicLong();
+        }
+        return counters;
+    }
+
+    /** One cloud synthesis; if the cue gave up on it, the result is only kept in the cache. */
+    private class CloudRequest implements Callable<Void> {
+        private final String text;
+        private final CoachingScript.Synthesizer cloud;
+        private AudioClip clip;
+        private boolean abandoned = false;
+
+        CloudRequest(String text, CoachingScript.Synthesizer cloud) {
+            this.text = text;
+            this.cloud = cloud;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            AudioClip result = cache.get(text, VOICE, SPEED, () -> cloud.synthesize(text));
+            synchronized (this) {
+                if (!abandoned) {
+                    clip = result;
+                    return null;
+                }
+            }
+            result.release();
+            return null;
+        }
+
+        synchronized AudioClip take() {
+            AudioClip taken = clip;
+            clip = null;
+            return taken;
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+            if (clip != null) {
+                clip.release();
+                clip = null;
+            }
+        }
+    }
+}
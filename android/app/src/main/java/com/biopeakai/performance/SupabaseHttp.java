@@ -0,0 +1,85 @@
+package com.biopeakai.performance;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The one HTTP stack of the process: the service, the plugins and the snapshot outbox share its
+ * connection pool and dispatcher, so TTS and snapshot requests multiplex over the same warm HTTP/2
+ * connection to the Supabase host.
+ */
+public final class SupabaseHttp {
+    private static final String TAG = "BP/SupabaseHttp";
+    // Milestones are minutes apart; keep the connection around for at least a couple of them
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final long PRECONNECT_INTERVAL_MS = 60_000;
+
+    private static OkHttpClient client;
+    private static String preconnectedHost;
+    private static long lastPreconnectMs;
+
+    private SupabaseHttp() {}
+
+    public static synchronized OkHttpClient client() {
+        if (client == null) {
+            client = new OkHttpClient.Builder()
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(5, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .build();
+        }
+        return client;
+    }
+
+    /**
+     * Resolves DNS and completes the TLS handshake to {@code supabaseUrl} in the background, leaving the
+     * connection in the pool for the first cue or snapshot of the run. Repeated calls are cheap no-ops.
+     */
+    public static void preconnect(String supabaseUrl) {
+        HttpUrl url = supabaseUrl != null ? HttpUrl.parse(supabaseUrl) : null;
+        if (url == null) return;
+
+        synchronized (SupabaseHttp.class) {
+            long now = System.currentTimeMillis();
+            if (url.host().equals(preconnectedHost) && now - lastPreconnectMs < PRECONNECT_INTERVAL_MS) {
+                return;
+            }
+            preconnectedHost = url.host();
+            lastPreconnectMs = now;
+        }
+
+        long startMs = System.currentTimeMillis();
+        Request request = new Request.Builder().url(url).head().build();
+        client().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response response) {
+                // Any status will do - only the connection matters
+                response.close();
+                Log.d(TAG, "🔌 Preconnected to " + url.host() + " over " + response.protocol()
+                        + " in " + (System.currentTimeMillis() - startMs) + "ms");
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                synchronized (SupabaseHttp.class) {
+                    preconnectedHost = null; // let the next call retry
+                }
+                Log.w(TAG, "⚠️ Preconnect to " + url.host() + " failed: " + e.getMessage());
+            }
+        });
+    }
+}
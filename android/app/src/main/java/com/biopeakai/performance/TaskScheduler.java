@@ -0,0 +1,186 @@
+package com.biopeakai.performance;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide worker threads, split into lanes so a coaching cue never waits behind an upload.
+ * Each lane has its own bounded queue, concurrency limit and thread priority; a full lane rejects
+ * new work instead of growing without bound.
+ */
+public final class TaskScheduler {
+    private static final String TAG = "BP/TaskScheduler";
+
+    /**
+     * Spoken cues: late audio is useless audio. One thread, and each cue holds it until it has played, so
+     * cues take turns on the shared player.
+     */
+    public static final int LANE_CUE = 0;
+    /** Work backing a pending plugin call from the web layer. */
+    public static final int LANE_INTERACTIVE = 1;
+    /** Pre-synthesis and other work nobody is waiting for. */
+    public static final int LANE_BACKGROUND = 2;
+    /**
+     * Cloud synthesis a cue is waiting on. Its own lane so a cue thread never blocks on work queued
+     * behind itself; requests a cue gave up on keep running here without holding a cue thread.
+     */
+    public static final int LANE_SYNTHESIS = 3;
+
+    private static final String[] LANE_NAMES = {"cue", "interactive", "background", "synthesis"};
+    private static final int[] CONCURRENCY = {1, 2, 1, 3};
+    private static final int[] QUEUE_CAPACITY = {8, 16, 32, 8};
+    private static final int[] THREAD_PRIORITY = {
+        Process.THREAD_PRIORITY_FOREGROUND,
+        Process.THREAD_PRIORITY_DEFAULT,
+        Process.THREAD_PRIORITY_BACKGROUND,
+        Process.THREAD_PRIORITY_FOREGROUND
+    };
+
+    private static TaskScheduler instance;
+
+    private final Lane[] lanes = new Lane[LANE_NAMES.length];
+
+    public static synchronized TaskScheduler getInstance() {
+        if (instance == null) {
+            instance = new TaskScheduler();
+        }
+        return instance;
+    }
+
+    private TaskScheduler() {
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i);
+        }
+    }
+
+    /** Runs {@code task} on the lane; returns false (and counts a rejection) if the lane is full. */
+    public boolean execute(int lane, Runnable task) {
+        try {
+            lanes[lane].submit(new FutureTask<>(task, null), true);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /** @throws RejectedExecutionException if the lane is full */
+    public <T> Future<T> submit(int lane, Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        lanes[lane].submit(future, false);
+        return future;
+    }
+
+    public int getQueueDepth(int lane) {
+        return lanes[lane].executor.getQueue().size();
+    }
+
+    public int getMaxQueueDepth(int lane) {
+        return lanes[lane].maxQueueDepth.get();
+    }
+
+    public long getCompleted(int lane) {
+        return lanes[lane].completed.get();
+    }
+
+    public long getRejected(int lane) {
+        return lanes[lane].rejected.get();
+    }
+
+    public long getAverageWaitMs(int lane) {
+        Lane l = lanes[lane];
+        long started = l.started.get();
+        return started > 0 ? l.totalWaitMs.get() / started : 0;
+    }
+
+    public long getMaxWaitMs(int lane) {
+        return lanes[lane].maxWaitMs.get();
+    }
+
+    public static int laneCount() {
+        return LANE_NAMES.length;
+    }
+
+    public static String laneName(int lane) {
+        return LANE_NAMES[lane];
+    }
+
+    private static final class Lane {
+        final int index;
+        final ThreadPoolExecutor executor;
+        final AtomicInteger maxQueueDepth = new AtomicInteger();
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong totalWaitMs = new AtomicLong();
+        final AtomicLong maxWaitMs = new AtomicLong();
+
+        Lane(int index) {
+            this.index = index;
+            AtomicInteger threadCount = new AtomicInteger();
+            executor = new ThreadPoolExecutor(
+                CONCURRENCY[index], CONCURRENCY[index], 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY[index]),
+                r -> new Thread(() -> {
+                    Process.setThreadPriority(THREAD_PRIORITY[index]);
+                    r.run();
+                }, "BP-" + LANE_NAMES[index] + "-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        void submit(FutureTask<?> task, boolean logFailure) {
+            long enqueuedMs = System.currentTimeMillis();
+            try {
+                executor.execute(() -> {
+                    long waitMs = System.currentTimeMillis() - enqueuedMs;
+                    started.incrementAndGet();
+                    totalWaitMs.addAndGet(waitMs);
+                    updateMax(maxWaitMs, waitMs);
+                    try {
+                        task.run();
+                        if (logFailure) reportFailure(task);
+                    } finally {
+                        completed.incrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                Log.w(TAG, "⚠️ Lane " + LANE_NAMES[index] + " full, rejecting task");
+                throw e;
+            }
+
+            int depth = executor.getQueue().size();
+            int max;
+            while (depth > (max = maxQueueDepth.get()) && !maxQueueDepth.compareAndSet(max, depth)) {
+                // retry
+            }
+        }
+
+        private void reportFailure(FutureTask<?> task) {
+            // Fire-and-forget tasks would otherwise lose their exception inside the FutureTask
+            try {
+                task.get();
+            } catch (Exception e) {
+                Log.e(TAG, "❌ Task on lane " + LANE_NAMES[index] + " failed: " + e.getCause(), e.getCause());
+            }
+        }
+
+        private static void updateMax(AtomicLong target, long value) {
+            long max;
+            while (value > (max = target.get()) && !target.compareAndSet(max, value)) {
+                // retry
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.biopeakai.performance;
+
+import android.os.SystemClock;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Always-on trace of typed events in a fixed in-memory ring. Recording is a few array stores with
+ * no formatting and no allocation, so hot paths can trace every fix; the oldest events are
+ * overwritten. {@link #export(File)} dumps the ring into a compact binary file for support tickets.
+ *
+ * Export format (big-endian): magic "BPTR", version, wall-clock and elapsed-realtime anchors, the
+ * event type names, then one 21-byte record per event: elapsed ms (long), type (byte), arg (int),
+ * value1 and value2 (float).
+ */
+public final class TraceLog {
+    private static final int CAPACITY = 8192; // power of two, ~240 KB
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAGIC = 0x42505452; // "BPTR"
+    private static final int VERSION = 1;
+
+    // Event types; the meaning of arg/value1/value2 is noted per type
+    public static final byte SESSION_START = 0;    // arg: resumed (0/1), v1: initial distance m
+    public static final byte SESSION_STOP = 1;     // v1: total distance m
+    public static final byte FIX_ACCEPTED = 2;     // v1: distance increment m, v2: accuracy m
+    public static final byte FIX_REJECTED = 3;     // arg: LocationFilter reject reason, v2: accuracy m
+    public static final byte MILESTONE = 4;        // arg: meters
+    public static final byte TTS_START = 5;        // arg: text length
+    public static final byte TTS_END = 6;          // arg: SpeechEngine path, v1: latency ms
+    public static final byte UPLOAD = 7;           // arg: HTTP status (0 = network error), v1: rows
+    public static final byte JOURNAL_RESUME = 8;   // arg: fixes recovered, v1: distance m
+    public static final byte SAMPLING_PROFILE = 9; // arg: SamplingController profile, v1: speed m/s, v2: accuracy m
+    public static final byte AUTO_PAUSE = 10;      // arg: paused (0/1), v1: moving time s, v2: distance m
+    public static final byte SPLIT = 11;           // arg: SplitTracker kind, v1: distance m, v2: pace s/km
+    public static final byte CUE = 12;             // arg: CueScheduler cue, v1: cue arg, v2: distance m
+    public static final byte CUE_DROPPED = 13;     // arg: CueScheduler cue, v1: cue arg, v2: distance m
+    private static final String[] TYPE_NAMES = {
+        "session_start", "session_stop", "fix_accepted", "fix_rejected", "milestone",
+        "tts_start", "tts_end", "upload", "journal_resume", "sampling_profile",
+        "auto_pause", "split", "cue", "cue_dropped"
+    };
+
+    private static final long[] time = new long[CAPACITY];
+    private static final byte[] type = new byte[CAPACITY];
+    private static final int[] arg = new int[CAPACITY];
+    private static final float[] value1 = new float[CAPACITY];
+    private static final float[] value2 = new float[CAPACITY];
+    // Sequence stamped last: export skips slots that were being rewritten while it read them
+    private static final long[] stamp = new long[CAPACITY];
+    private static final AtomicLong next = new AtomicLong();
+
+    private TraceLog() {}
+
+    public static void record(byte eventType, int eventArg, float v1, float v2) {
+        long seq = next.getAndIncrement();
+        int slot = (int) (seq & MASK);
+        time[slot] = SystemClock.elapsedRealtime();
+        type[slot] = eventType;
+        arg[slot] = eventArg;
+        value1[slot] = v1;
+        value2[slot] = v2;
+        stamp[slot] = seq + 1;
+    }
+
+    public static void record(byte eventType, int eventArg) {
+        record(eventType, eventArg, 0f, 0f);
+    }
+
+    public static long getRecordedCount() {
+        return next.get();
+    }
+
+    /** Writes the current ring, oldest first, and returns the number of events written. */
+    public static synchronized int export(File file) throws IOException {
+        long end = next.get();
+        long start = Math.max(0, end - CAPACITY);
+
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(SystemClock.elapsedRealtime());
+            out.writeByte(TYPE_NAMES.length);
+            for (String name : TYPE_NAMES) {
+                out.writeUTF(name);
+            }
+
+            out.writeInt((int) (end - start)); // upper bound; the reader stops at end of file
+            for (long seq = start; seq < end; seq++) {
+                int slot = (int) (seq & MASK);
+                long t = time[slot];
+                byte ty = type[slot];
+                int a = arg[slot];
+                float v1 = value1[slot];
+                float v2 = value2[slot];
+                if (stamp[slot] != seq + 1) continue; // overwritten or still being written
+                out.writeLong(t);
+                out.writeByte(ty);
+                out.writeInt(a);
+                out.writeFloat(v1);
+                out.writeFloat(v2);
+                count++;
+            }
+        }
+        return count;
+    }
+}
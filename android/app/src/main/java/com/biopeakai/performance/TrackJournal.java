@@ -0,0 +1,288 @@
+package com.biopeakai.performance;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of accepted fixes for the running session.
+ *
+ * Layout: a fixed {@value #HEADER_SIZE}-byte header with the service configuration, followed by
+ * fixed {@value #RECORD_SIZE}-byte records. Every record carries the running totals and its own CRC,
+ * so recovery only has to read the header and the last intact record, regardless of session length.
+ *
+ * Records are written to the channel as they arrive (survives the process being killed);
+ * fsync is batched since it is only needed to survive power loss.
+ */
+public class TrackJournal {
+    private static final int MAGIC = 0x42505431; // "BPT1"
+    private static final int VERSION = 4;
+    static final int HEADER_SIZE = 8192;
+    static final int RECORD_SIZE = 80;
+
+    private static final int SYNC_EVERY_RECORDS = 10;
+    private static final long SYNC_INTERVAL_MS = 30_000;
+
+    public static class Config {
+        public String sessionId;
+        public String trainingGoal;
+        public double targetDistance;
+        public double targetPace;
+        public long targetDuration;
+        public int timeCueSeconds;
+        public boolean shouldGiveFeedback;
+        public String supabaseUrl;
+        public String supabaseAnonKey;
+        public String userToken;
+        public long sessionStartTime;
+        public double initialDistance;
+        public long initialMovingTime;
+        public float initialElevationGain;
+        public float initialElevationLoss;
+    }
+
+    public static class Recovered {
+        public Config config;
+        public int fixCount;
+        public long lastTimestamp;
+        public double latitude;
+        public double longitude;
+        public double totalDistance;
+        public int feedbackSegment;
+        public long movingTime;
+        public float elevationGain;
+        public float elevationLoss;
+    }
+
+    private final File file;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private int unsyncedRecords;
+    private long lastSyncAt;
+
+    public TrackJournal(File file) {
+        this.file = file;
+    }
+
+    public boolean isOpen() {
+        return channel != null;
+    }
+
+    /** Starts a new journal for a session, discarding any previous one. */
+    public void start(Config config) throws IOException {
+        close();
+
+        byte[] header = encodeHeader(config);
+        open();
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap(header), 0);
+        channel.position(HEADER_SIZE);
+        channel.force(true);
+        lastSyncAt = System.currentTimeMillis();
+    }
+
+    /** Appends one accepted fix together with the running session totals. */
+    public void append(LocationData data, int feedbackSegment) throws IOException {
+        if (channel == null) return;
+
+        record.clear();
+        record.putLong(data.timestamp);
+        record.putDouble(data.latitude);
+        record.putDouble(data.longitude);
+        record.putDouble(data.altitude);
+        record.putDouble(data.totalDistance);
+        record.putFloat(data.accuracy);
+        record.putFloat(data.speed);
+        record.putFloat(data.heading);
+        record.putFloat(data.distanceIncrement);
+        record.putInt(feedbackSegment);
+        record.putLong(data.movingTime);
+        record.putFloat(data.elevationGain);
+        record.putFloat(data.elevationLoss);
+        crc.reset();
+        crc.update(record.array(), 0, RECORD_SIZE - 4);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+
+        unsyncedRecords++;
+        long now = System.currentTimeMillis();
+        if (unsyncedRecords >= SYNC_EVERY_RECORDS || now - lastSyncAt >= SYNC_INTERVAL_MS) {
+            sync();
+        }
+    }
+
+    public void sync() throws IOException {
+        if (channel == null || unsyncedRecords == 0) return;
+        channel.force(false);
+        unsyncedRecords = 0;
+        lastSyncAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Reads back the journal left by a killed session and reopens it for appending.
+     * A torn record at the tail is dropped. Returns null when there is nothing to resume.
+     */
+    public Recovered recover() throws IOException {
+        close();
+        if (!file.exists() || file.length() < HEADER_SIZE) return null;
+
+        open();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        Config config = decodeHeader(header.array());
+        if (config == null) {
+            close();
+            return null;
+        }
+
+        Recovered recovered = new Recovered();
+        recovered.config = config;
+        recovered.totalDistance = config.initialDistance;
+        recovered.feedbackSegment = (int) (config.initialDistance / 500.0);
+        recovered.movingTime = config.initialMovingTime;
+        recovered.elevationGain = config.initialElevationGain;
+        recovered.elevationLoss = config.initialElevationLoss;
+
+        long count = (channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        while (count > 0) {
+            record.clear();
+            readFully(record, HEADER_SIZE + (count - 1) * RECORD_SIZE);
+            crc.reset();
+            crc.update(record.array(), 0, RECORD_SIZE - 4);
+            if (record.getInt(RECORD_SIZE - 4) == (int) crc.getValue()) break;
+            count--;
+        }
+
+        if (count > 0) {
+            recovered.fixCount = (int) count;
+            recovered.lastTimestamp = record.getLong(0);
+            recovered.latitude = record.getDouble(8);
+            recovered.longitude = record.getDouble(16);
+            recovered.totalDistance = record.getDouble(32);
+            recovered.feedbackSegment = record.getInt(56);
+            recovered.movingTime = record.getLong(60);
+            recovered.elevationGain = record.getFloat(68);
+            recovered.elevationLoss = record.getFloat(72);
+        }
+
+        long validLength = HEADER_SIZE + count * RECORD_SIZE;
+        channel.truncate(validLength);
+        channel.position(validLength);
+        lastSyncAt = System.currentTimeMillis();
+        return recovered;
+    }
+
+    public void close() {
+        if (channel == null) return;
+        try {
+            sync();
+            raf.close();
+        } catch (IOException ignored) {
+        }
+        raf = null;
+        channel = null;
+        unsyncedRecords = 0;
+    }
+
+    /** Closes and removes the journal once the session has ended normally. */
+    public void delete() {
+        close();
+        file.delete();
+    }
+
+    private void open() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) throw new IOException("Unexpected end of journal");
+        }
+    }
+
+    private static byte[] encodeHeader(Config config) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, config.sessionId);
+        writeString(out, config.trainingGoal);
+        out.writeDouble(config.targetDistance);
+        out.writeDouble(config.targetPace);
+        out.writeLong(config.targetDuration);
+        out.writeInt(config.timeCueSeconds);
+        out.writeBoolean(config.shouldGiveFeedback);
+        writeString(out, config.supabaseUrl);
+        writeString(out, config.supabaseAnonKey);
+        writeString(out, config.userToken);
+        out.writeLong(config.sessionStartTime);
+        out.writeDouble(config.initialDistance);
+        out.writeLong(config.initialMovingTime);
+        out.writeFloat(config.initialElevationGain);
+        out.writeFloat(config.initialElevationLoss);
+        out.flush();
+
+        if (bytes.size() > HEADER_SIZE - 4) {
+            throw new IOException("Journal header too large: " + bytes.size() + " bytes");
+        }
+
+        byte[] header = new byte[HEADER_SIZE];
+        System.arraycopy(bytes.toByteArray(), 0, header, 0, bytes.size());
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header, 0, HEADER_SIZE - 4);
+        ByteBuffer.wrap(header).putInt(HEADER_SIZE - 4, (int) headerCrc.getValue());
+        return header;
+    }
+
+    private static Config decodeHeader(byte[] header) throws IOException {
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(header, 0, HEADER_SIZE - 4);
+        if (ByteBuffer.wrap(header).getInt(HEADER_SIZE - 4) != (int) headerCrc.getValue()) return null;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+
+        Config config = new Config();
+        config.sessionId = readString(in);
+        config.trainingGoal = readString(in);
+        config.targetDistance = in.readDouble();
+        config.targetPace = in.readDouble();
+        config.targetDuration = in.readLong();
+        config.timeCueSeconds = in.readInt();
+        config.shouldGiveFeedback = in.readBoolean();
+        config.supabaseUrl = readString(in);
+        config.supabaseAnonKey = readString(in);
+        config.userToken = readString(in);
+        config.sessionStartTime = in.readLong();
+        config.initialDistance = in.readDouble();
+        config.initialMovingTime = in.readLong();
+        config.initialElevationGain = in.readFloat();
+        config.initialElevationLoss = in.readFloat();
+        return config;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
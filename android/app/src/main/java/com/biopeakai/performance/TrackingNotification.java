@@ -0,0 +1,119 @@
+package com.biopeakai.performance;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+
+import androidx.core.app.NotificationCompat;
+
+/**
+ * The foreground service's ongoing notification. One builder is kept for the whole run and the
+ * notification is only re-posted when the text it shows would change, and never more often than
+ * {@link #MIN_UPDATE_INTERVAL_MS}. Elapsed time is rendered by the system chronometer, so it ticks
+ * without any update from us.
+ */
+public class TrackingNotification {
+    public static final String CHANNEL_ID = "biopeak_gps_tracking";
+    public static final int NOTIFICATION_ID = 1001;
+
+    private static final String TITLE = "BioPeak Treino Ativo";
+    // Updates are a binder call into system_server, and the system throttles chatty apps anyway
+    private static final long MIN_UPDATE_INTERVAL_MS = 5000;
+    // Pace is shown to the second but only re-posted when it moves by this much
+    private static final int PACE_BUCKET_SECONDS = 5;
+
+    private final Context context;
+    private final NotificationManager manager;
+    private final StringBuilder text = new StringBuilder(48);
+    private final StringBuilder subText = new StringBuilder(24);
+    private NotificationCompat.Builder builder;
+
+    private long shownDecameters = -1;
+    private int shownPaceBucket = -1;
+    private int shownSplit = -1;
+    private long lastUpdateMs = 0;
+
+    public TrackingNotification(Context context) {
+        this.context = context;
+        this.manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    public void createChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && manager != null) {
+            NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                "BioPeak GPS Tracking",
+                NotificationManager.IMPORTANCE_LOW
+            );
+            channel.setDescription("Rastreamento de localização durante treino");
+            channel.setShowBadge(false);
+            manager.createNotificationChannel(channel);
+        }
+    }
+
+    /** Builds the notification for startForeground; {@code sessionStartMs} is wall-clock time. */
+    public Notification start(long sessionStartMs, double meters) {
+        builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+            .setContentTitle(TITLE)
+            .setSmallIcon(android.R.drawable.ic_menu_mylocation)
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setOngoing(true)
+            .setOnlyAlertOnce(true)
+            .setShowWhen(true)
+            .setUsesChronometer(true)
+            .setWhen(sessionStartMs);
+        shownDecameters = -1;
+        shownPaceBucket = -1;
+        shownSplit = -1;
+        render(meters, 0, 1);
+        lastUpdateMs = SystemClock.elapsedRealtime();
+        return builder.build();
+    }
+
+    /**
+     * Cheap enough to call on every fix: returns without allocating unless the notification is due.
+     * {@code paceSecondsPerKm} is 0 when unknown; {@code split} is the 1-based kilometre in progress.
+     */
+    public void update(double meters, int paceSecondsPerKm, int split) {
+        if (builder == null || manager == null) return;
+
+        long decameters = (long) (meters / 10); // the text shows 10 m resolution
+        int paceBucket = paceSecondsPerKm / PACE_BUCKET_SECONDS;
+        if (decameters == shownDecameters && paceBucket == shownPaceBucket && split == shownSplit) return;
+
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastUpdateMs < MIN_UPDATE_INTERVAL_MS) return; // the next fix will catch up
+        lastUpdateMs = now;
+
+        render(meters, paceSecondsPerKm, split);
+        manager.notify(NOTIFICATION_ID, builder.build());
+    }
+
+    private void render(double meters, int paceSecondsPerKm, int split) {
+        shownDecameters = (long) (meters / 10);
+        shownPaceBucket = paceSecondsPerKm / PACE_BUCKET_SECONDS;
+        shownSplit = split;
+
+        // "3.45 km · 5:32 /km"
+        text.setLength(0);
+        long decameters = shownDecameters;
+        text.append(decameters / 100).append('.');
+        long fraction = decameters % 100;
+        if (fraction < 10) text.append('0');
+        text.append(fraction).append(" km");
+        if (paceSecondsPerKm > 0) {
+            int seconds = paceSecondsPerKm % 60;
+            text.append(" · ").append(paceSecondsPerKm / 60).append(':');
+            if (seconds < 10) text.append('0');
+            text.append(seconds).append(" /km");
+        }
+
+        subText.setLength(0);
+        subText.append("Parcial ").append(split);
+
+        builder.setContentText(text.toString()).setSubText(subText.toString());
+    }
+}
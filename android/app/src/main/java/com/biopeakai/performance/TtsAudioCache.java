@@ -0,0 +1,253 @@
+package com.biopeakai.performance;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of synthesized speech under getCacheDir(), keyed by a hash of (text, voice, speed).
+ * Entries are plain MP3 files so a hit can be handed straight to MediaPlayer. On a miss the caller gets the
+ * freshly synthesized audio in memory right away and the entry is persisted on a background writer, so the
+ * disk write is off the cue's critical path. Concurrent misses for the same key share a single synthesis
+ * request; the callers that joined it receive the stored file.
+ */
+public class TtsAudioCache {
+    private static final String TAG = "BP/TtsCache";
+    private static final String DIR_NAME = "tts_cache";
+    private static final String EXTENSION = ".mp3";
+    private static final long MAX_BYTES = 20L * 1024 * 1024;
+
+    public interface Loader {
+        AudioBuffer load() throws Exception;
+    }
+
+    private static TtsAudioCache instance;
+
+    private final File dir;
+    private final long maxBytes;
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ConcurrentHashMap<String, FutureTask<File>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, AudioBuffer> pendingAudio = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "BP-TtsCacheWriter"));
+    private boolean indexed = false;
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong sharedLoads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public static synchronized TtsAudioCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new TtsAudioCache(new File(context.getApplicationContext().getCacheDir(), DIR_NAME), MAX_BYTES);
+        }
+        return instance;
+    }
+
+    TtsAudioCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    public static String key(String text, String voice, double speed) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((text + '\u0000' + voice + '\u0000' + speed).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * Returns the cached audio file for this phrase to play, or null without touching the network. Counts
+     * as a hit; use {@link #contains} to only check for it.
+     */
+    public File peek(String text, String voice, double speed) {
+        return lookup(key(text, voice, speed), true);
+    }
+
+    /** Whether this phrase is cached; an existence probe, not counted as a hit. */
+    public boolean contains(String text, String voice, double speed) {
+        return lookup(key(text, voice, speed), false) != null;
+    }
+
+    /**
+     * Returns the audio for this phrase: the cache entry on a hit, otherwise synthesizes it with {@code loader}
+     * on the calling thread. Callers that arrive while that synthesis runs wait for the same result.
+     */
+    public AudioClip get(String text, String voice, double speed, Loader loader) throws Exception {
+        String key = key(text, voice, speed);
+
+        File cached = lookup(key, true);
+        if (cached != null) {
+            return AudioClip.of(cached);
+        }
+
+        // Completes once the entry is on disk; only joiners wait for it
+        FutureTask<File> stored = new FutureTask<>(() -> store(key));
+        FutureTask<File> existing = inFlight.putIfAbsent(key, stored);
+        if (existing != null) {
+            sharedLoads.incrementAndGet();
+            return AudioClip.of(await(existing));
+        }
+
+        misses.incrementAndGet();
+        AudioBuffer audio;
+        try {
+            audio = loader.load();
+        } catch (Exception e) {
+            pendingAudio.remove(key);
+            stored.run(); // fails joiners with the missing-audio error
+            inFlight.remove(key, stored);
+            throw e;
+        }
+
+        pendingAudio.put(key, audio.retain()); // writer's reference
+        writer.execute(() -> {
+            stored.run();
+            inFlight.remove(key, stored);
+        });
+        return AudioClip.of(audio);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getSharedLoads() {
+        return sharedLoads.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized long getSizeBytes() {
+        return totalBytes;
+    }
+
+    private synchronized File lookup(String key, boolean serve) {
+        ensureIndexed();
+        if (entries.get(key) == null) {
+            return null;
+        }
+
+        File file = fileFor(key);
+        if (!file.exists()) {
+            // Cleared from under us (e.g. the system trimmed the cache dir)
+            totalBytes -= entries.remove(key);
+            return null;
+        }
+
+        if (serve) {
+            hits.incrementAndGet();
+        }
+        file.setLastModified(System.currentTimeMillis()); // keeps LRU order across restarts
+        return file;
+    }
+
+    private File store(String key) throws IOException {
+        AudioBuffer audio = pendingAudio.remove(key);
+        if (audio == null) {
+            throw new IOException("Synthesis failed for cache entry " + key);
+        }
+
+        try {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Could not create " + dir);
+            }
+
+            File file = fileFor(key);
+            File tmp = new File(dir, key + ".tmp");
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                out.write(audio.array(), 0, audio.length());
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                throw new IOException("Could not commit cache entry " + key);
+            }
+
+            synchronized (this) {
+                ensureIndexed();
+                Long previous = entries.put(key, (long) audio.length());
+                totalBytes += audio.length() - (previous != null ? previous : 0);
+                evictIfNeeded(key);
+            }
+            return file;
+        } finally {
+            audio.release();
+        }
+    }
+
+    private void evictIfNeeded(String keep) {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (eldest.getKey().equals(keep)) continue;
+            fileFor(eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void ensureIndexed() {
+        if (indexed) return;
+        indexed = true;
+
+        File[] files = dir.listFiles();
+        if (files == null) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(EXTENSION)) {
+                file.delete(); // leftover .tmp from an interrupted write
+                continue;
+            }
+            entries.put(name.substring(0, name.length() - EXTENSION.length()), file.length());
+            totalBytes += file.length();
+        }
+        evictIfNeeded(null);
+        Log.d(TAG, "📦 TTS cache indexed: " + entries.size() + " entries, " + totalBytes + " bytes");
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, key + EXTENSION);
+    }
+
+    private static File await(FutureTask<File> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.biopeakai.performance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Raw fixes to replay through the tracking core, in primitive columns so replaying allocates nothing.
+ * Either loaded from a recorded track (CSV: timeMs,latitude,longitude,accuracy; a header line and
+ * '#' comments are skipped) or generated: a seeded multi-hour run at 1 Hz with the things real
+ * recordings contain - GPS noise, poor-accuracy fixes, multipath outliers, traffic-light stops and
+ * tunnel gaps.
+ */
+final class TrackFixture {
+    final double[] latitude;
+    final double[] longitude;
+    final float[] accuracy;
+    final long[] timeMs;
+    final int size;
+
+    private TrackFixture(double[] latitude, double[] longitude, float[] accuracy, long[] timeMs, int size) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.timeMs = timeMs;
+        this.size = size;
+    }
+
+    static TrackFixture load(File file) throws IOException {
+        int capacity = 4096;
+        double[] lat = new double[capacity];
+        double[] lon = new double[capacity];
+        float[] acc = new float[capacity];
+        long[] time = new long[capacity];
+        int n = 0;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || !Character.isDigit(line.charAt(0))) continue;
+                String[] parts = line.split(",");
+                if (parts.length < 4) {
+                    throw new IOException("Expected timeMs,latitude,longitude,accuracy: " + line);
+                }
+                if (n == capacity) {
+                    capacity *= 2;
+                    lat = Arrays.copyOf(lat, capacity);
+                    lon = Arrays.copyOf(lon, capacity);
+                    acc = Arrays.copyOf(acc, capacity);
+                    time = Arrays.copyOf(time, capacity);
+                }
+                time[n] = Long.parseLong(parts[0].trim());
+                lat[n] = Double.parseDouble(parts[1].trim());
+                lon[n] = Double.parseDouble(parts[2].trim());
+                acc[n] = Float.parseFloat(parts[3].trim());
+                n++;
+            }
+        }
+        if (n == 0) {
+            throw new IOException("No fixes in " + file);
+        }
+        return new TrackFixture(lat, lon, acc, time, n);
+    }
+
+    static TrackFixture synthetic(double hours, long seed) {
+        int n = (int) (hours * 3600);
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        float[] acc = new float[n];
+        long[] time = new long[n];
+        Random random = new Random(seed);
+
+        double metersPerDegLat = 111_195.0;
+        double originLat = -23.5874; // Ibirapuera
+        double originLon = -46.6576;
+        double metersPerDegLon = metersPerDegLat * Math.cos(Math.toRadians(originLat));
+
+        double east = 0;
+        double north = 0;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        long t = 1_700_000_000_000L;
+        int stopLeft = 0;
+        int written = 0;
+
+        for (int i = 0; i < n; i++) {
+            t += 1000;
+
+            // Stops at crossings every ten minutes or so
+            if (stopLeft == 0 && random.nextInt(600) == 0) {
+                stopLeft = 20 + random.nextInt(40);
+            }
+            boolean stopped = stopLeft > 0;
+            if (stopped) stopLeft--;
+
+            if (!stopped) {
+                double speed = 2.8 + random.nextGaussian() * 0.3;
+                heading += random.nextGaussian() * 0.05;
+                east += speed * Math.sin(heading);
+                north += speed * Math.cos(heading);
+            }
+            // A minute-long tunnel halfway through every hour
+            if (i % 3600 >= 1800 && i % 3600 < 1860) continue;
+
+            float accuracy = (float) (4 + Math.abs(random.nextGaussian()) * 5);
+            double noiseEast = random.nextGaussian() * accuracy / 2;
+            double noiseNorth = random.nextGaussian() * accuracy / 2;
+            int roll = random.nextInt(1000);
+            if (roll < 2) {
+                // Multipath: a confident fix far off the track
+                noiseEast += 60 + random.nextDouble() * 100;
+            } else if (roll < 20) {
+                accuracy = 55 + random.nextFloat() * 50;
+            }
+
+            lat[written] = originLat + (north + noiseNorth) / metersPerDegLat;
+            lon[written] = originLon + (east + noiseEast) / metersPerDegLon;
+            acc[written] = accuracy;
+            time[written] = t;
+            written++;
+        }
+        return new TrackFixture(lat, lon, acc, time, written);
+    }
+}
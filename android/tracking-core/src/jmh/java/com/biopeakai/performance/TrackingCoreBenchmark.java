@@ -0,0 +1,94 @@
+package com.biopeakai.performance;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a multi-hour track one fix per operation, so throughput reads as fixes per second and the
+ * gc profiler's gc.alloc.rate.norm as bytes allocated per fix (expected: 0). The track wraps around
+ * with a reset, as if the runner started a new session.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackingCoreBenchmark {
+    @Param({"1", "4"})
+    public double hours;
+
+    /** A recorded track to replay instead of the synthetic one; see {@link TrackFixture}. */
+    @Param({""})
+    public String trackFile;
+
+    private TrackFixture track;
+    private TrackingCore core;
+    private KalmanLocationFilter filter;
+    private Workout workout;
+    private CueScheduler cues;
+    // Session distance after each fix, recorded from one pass of the core, for the cue benchmark
+    private double[] totalDistance;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws IOException {
+        track = trackFile.isEmpty() ? TrackFixture.synthetic(hours, 42) : TrackFixture.load(new File(trackFile));
+        core = new TrackingCore(new KalmanLocationFilter());
+        filter = new KalmanLocationFilter();
+        workout = Workout.fromGoal(null, 500, 0, 0, 0).every(Workout.AXIS_TIME, 300_000, CueScheduler.CUE_TIME);
+        cues = new CueScheduler(2000);
+
+        totalDistance = new double[track.size];
+        core.reset(0, 0);
+        for (int i = 0; i < track.size; i++) {
+            core.process(track.latitude[i], track.longitude[i], track.accuracy[i], track.timeMs[i]);
+            totalDistance[i] = core.getTotalDistance();
+        }
+        core.reset(0, 0);
+        cursor = 0;
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == track.size ? 0 : i + 1;
+        return i;
+    }
+
+    /** The whole per-fix path: filter, distance and auto-pause. */
+    @Benchmark
+    public double fix() {
+        int i = next();
+        if (i == 0) core.reset(0, 0);
+        core.process(track.latitude[i], track.longitude[i], track.accuracy[i], track.timeMs[i]);
+        return core.getTotalDistance();
+    }
+
+    @Benchmark
+    public double filter() {
+        int i = next();
+        if (i == 0) filter.reset();
+        filter.process(track.latitude[i], track.longitude[i], track.accuracy[i], track.timeMs[i]);
+        return filter.getDistanceIncrement();
+    }
+
+    @Benchmark
+    public boolean cues() {
+        int i = next();
+        if (i == 0) cues.load(workout, 0, 0);
+        return cues.onFix(totalDistance[i], track.timeMs[i] - track.timeMs[0], 0, false);
+    }
+}
@@ -0,0 +1,87 @@
+package com.biopeakai.performance;
+
+import java.util.ArrayDeque;
+
+/**
+ * Reference-counted, pooled byte buffer holding one encoded audio clip in memory.
+ * The last {@link #release()} returns the backing array to a small pool so the next cue reuses it.
+ */
+public final class AudioBuffer {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int POOL_SIZE = 3;
+    // Larger arrays are left to the GC rather than pinned in the pool for the whole session
+    private static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    private static final ArrayDeque<AudioBuffer> pool = new ArrayDeque<>(POOL_SIZE);
+
+    private byte[] data;
+    private int length;
+    private int refCount;
+
+    private AudioBuffer(byte[] data, int length) {
+        this.data = data;
+        this.length = length;
+    }
+
+    /** Returns an empty buffer from the pool, or a new one when the pool is empty. */
+    public static AudioBuffer obtain() {
+        AudioBuffer buffer;
+        synchronized (pool) {
+            buffer = pool.poll();
+        }
+        if (buffer == null) {
+            buffer = new AudioBuffer(new byte[INITIAL_CAPACITY], 0);
+        }
+        buffer.length = 0;
+        buffer.refCount = 1;
+        return buffer;
+    }
+
+    /** Adopts an existing array without copying; it joins the pool once released. */
+    public static AudioBuffer wrap(byte[] bytes) {
+        AudioBuffer buffer = new AudioBuffer(bytes, bytes.length);
+        buffer.refCount = 1;
+        return buffer;
+    }
+
+    public byte[] array() {
+        return data;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > data.length) {
+            byte[] grown = new byte[Math.max(capacity, data.length * 2)];
+            System.arraycopy(data, 0, grown, 0, length);
+            data = grown;
+        }
+    }
+
+    public void write(byte[] src, int offset, int count) {
+        ensureCapacity(length + count);
+        System.arraycopy(src, offset, data, length, count);
+        length += count;
+    }
+
+    public synchronized AudioBuffer retain() {
+        if (refCount <= 0) throw new IllegalStateException("AudioBuffer already released");
+        refCount++;
+        return this;
+    }
+
+    public void release() {
+        synchronized (this) {
+            if (refCount <= 0) throw new IllegalStateException("AudioBuffer released twice");
+            if (--refCount > 0) return;
+        }
+        if (data.length > MAX_POOLED_CAPACITY) return;
+        synchronized (pool) {
+            if (pool.size() < POOL_SIZE) {
+                pool.add(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.biopeakai.performance;
+
+/**
+ * Auto-pause state machine and moving-time clock. The runner is paused after standing within a few
+ * meters at walking-pace-or-less speed for {@link #PAUSE_AFTER_MS}; the time spent standing before the
+ * pause was detected is taken back out of the moving time. Any accepted fix showing real speed or
+ * displacement from where they stopped resumes immediately.
+ *
+ * Time comes from fix timestamps, so waiting for the first fix and gaps after a service restart are
+ * never counted. Fed by {@link TrackingCore} on the pipeline thread.
+ */
+public class AutoPause {
+    private static final double PAUSE_SPEED = 0.6;        // m/s
+    private static final double PAUSE_RADIUS_M = 8.0;
+    static final long PAUSE_AFTER_MS = 8000;
+    private static final double RESUME_SPEED = 1.4;       // m/s
+    private static final double RESUME_RADIUS_M = 15.0;
+    private static final double METERS_PER_DEG_LAT = 111_195.0;
+
+    private boolean paused;
+    private boolean changed;
+    private long movingMs;
+    private long lastTimeMs = -1;
+    private long stillSinceMs = -1;
+    private double anchorLat;
+    private double anchorLon;
+    private double metersPerDegLon;
+
+    /** Starts a session, or resumes one that had already accumulated {@code movingMs}. */
+    public void reset(long movingMs) {
+        this.movingMs = movingMs;
+        paused = false;
+        changed = false;
+        lastTimeMs = -1;
+        stillSinceMs = -1;
+    }
+
+    /**
+     * Feeds one fix; position and speed are only read when it was accepted. Returns true when the
+     * runner was paused or resumed by this fix.
+     */
+    public boolean onFix(long timeMs, boolean accepted, double latitude, double longitude, double speed) {
+        changed = false;
+        if (lastTimeMs >= 0 && timeMs > lastTimeMs && !paused) {
+            movingMs += timeMs - lastTimeMs;
+        }
+        if (timeMs > lastTimeMs) {
+            lastTimeMs = timeMs;
+        }
+        if (!accepted) return false;
+
+        if (paused) {
+            if (speed > RESUME_SPEED || distanceFromAnchor(latitude, longitude) > RESUME_RADIUS_M) {
+                paused = false;
+                stillSinceMs = -1;
+                changed = true;
+            }
+        } else if (speed < PAUSE_SPEED) {
+            if (stillSinceMs < 0 || distanceFromAnchor(latitude, longitude) > PAUSE_RADIUS_M) {
+                // (Re)start the stillness window here
+                stillSinceMs = timeMs;
+                anchorLat = latitude;
+                anchorLon = longitude;
+                metersPerDegLon = METERS_PER_DEG_LAT * Math.cos(Math.toRadians(latitude));
+            } else if (timeMs - stillSinceMs >= PAUSE_AFTER_MS) {
+                paused = true;
+                movingMs -= timeMs - stillSinceMs;
+                changed = true;
+            }
+        } else {
+            stillSinceMs = -1;
+        }
+        return changed;
+    }
+
+    private double distanceFromAnchor(double latitude, double longitude) {
+        double dNorth = (latitude - anchorLat) * METERS_PER_DEG_LAT;
+        double dEast = (longitude - anchorLon) * metersPerDegLon;
+        return Math.sqrt(dNorth * dNorth + dEast * dEast);
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /** Whether the last fix paused or resumed the runner. */
+    public boolean hasChanged() {
+        return changed;
+    }
+
+    public long getMovingTimeMs() {
+        return movingMs;
+    }
+}
@@ -0,0 +1,247 @@
+package com.biopeakai.performance;
+
+import java.util.Random;
+
+/**
+ * Composes the spoken Portuguese coaching messages from constant phrase fragments into one reused
+ * StringBuilder. The only allocation is the final String, and not even that when the same message
+ * was composed recently: results are kept in a small table indexed by {@link #key}, so recurring
+ * texts come back as the same instance. Thread-safe; use {@link #getInstance()} so the whole app
+ * shares one seeded random source.
+ */
+public class CoachingMessages {
+    public static final String COMPLETION_PREAMBLE = "Parabéns! Você completou seu treino";
+
+    public static final String[] MOTIVATION_PHRASES = {
+        "Excelente desempenho hoje! Continue assim.",
+        "Você está evoluindo rápido — orgulhe-se desse treino!",
+        "Mais um passo na jornada. Mantenha a constância!",
+        "Ótimo trabalho! A cada treino, mais forte.",
+        "Treino concluído com sucesso! Descanse bem para o próximo desafio."
+    };
+
+    private static final String MILESTONE_PREFIX = "Você completou ";
+    private static final String METERS = " metros";
+    private static final String KILOMETERS = " quilômetros";
+    private static final String IN = "em ";
+    private static final String AND = " e ";
+    private static final String MINUTE = " minuto";
+    private static final String MINUTES = " minutos";
+    private static final String SECOND = " segundo";
+    private static final String SECONDS = " segundos";
+    private static final String PER_KM = " por quilômetro";
+    private static final String CURRENT_PACE = ". Seu pace atual é ";
+    private static final String KEEP_GOING = ". Continue assim!";
+    private static final String COVERING = ", percorrendo uma distância de ";
+    private static final String AT_PACE = " em um pace de ";
+    private static final String CLIMBING = ", com ";
+    private static final String OF_CLIMB = " metros de subida";
+    private static final String OF_TRAINING = " de treino. Você já percorreu ";
+    private static final String GOAL_OF = "Objetivo de ";
+    private static final String GOAL_REACHED = " alcançado! Continue assim!";
+    private static final String REP = "Tiro ";
+    private static final String OF = " de ";
+    private static final String GO = ". Vai!";
+    private static final String REP_DONE = " concluído. Recupere.";
+    private static final String SET_OF = "Série de ";
+    private static final String SET_DONE = " tiros concluída! Excelente trabalho.";
+    private static final String PACE_NOW = "Seu pace está em ";
+    private static final String SPEED_UP = ". Acelere um pouco.";
+    private static final String EASE_OFF = ". Segure um pouco.";
+
+    // Paces outside (0, 100) min/km are GPS noise or standing still, not worth announcing
+    private static final double MAX_PACE_MIN_PER_KM = 100.0;
+    // Less climb than this is flat ground as far as the runner is concerned
+    private static final int MIN_ANNOUNCED_GAIN_METERS = 10;
+    private static final int RECENT_CAPACITY = 64; // power of two
+
+    private static final CoachingMessages instance = new CoachingMessages(System.nanoTime());
+
+    private final Random random;
+    private final StringBuilder text = new StringBuilder(192);
+    private final String[] recent = new String[RECENT_CAPACITY];
+
+    public static CoachingMessages getInstance() {
+        return instance;
+    }
+
+    public CoachingMessages(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Stable 64-bit key of a message (FNV-1a over its UTF-16 chars): the same text yields the same key
+     * across runs and devices, so it can name cached audio.
+     */
+    public static long key(CharSequence message) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < message.length(); i++) {
+            hash ^= message.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** "Você completou 1500 metros" - known ahead of the run, so it is pre-synthesized. */
+    public synchronized String milestonePrefix(int meters) {
+        text.setLength(0);
+        text.append(MILESTONE_PREFIX).append(meters).append(METERS);
+        return result();
+    }
+
+    /** "em 7 minutos e 30 segundos. Seu pace atual é 5 minutos por quilômetro." */
+    public synchronized String milestoneSuffix(int seconds, double paceMinPerKm) {
+        text.setLength(0);
+        text.append(IN);
+        appendDuration(seconds);
+        if (isAnnounceable(paceMinPerKm)) {
+            text.append(CURRENT_PACE);
+            appendPace(paceMinPerKm);
+            text.append('.');
+        } else {
+            text.append(KEEP_GOING);
+        }
+        return result();
+    }
+
+    /**
+     * The spoken part of the completion message around the summary. The preamble and the motivation
+     * phrase are left out when their audio is already cached; pass null for {@code motivation} to omit it.
+     */
+    public synchronized String completion(boolean withPreamble, int meters, int seconds, double paceMinPerKm,
+                                          int elevationGain, String motivation) {
+        text.setLength(0);
+        if (withPreamble) {
+            text.append(COMPLETION_PREAMBLE).append(' ');
+        }
+        text.append(IN);
+        appendDuration(seconds);
+        text.append(COVERING);
+        appendDistance(meters);
+        if (isAnnounceable(paceMinPerKm)) {
+            text.append(AT_PACE);
+            appendPace(paceMinPerKm);
+        }
+        if (elevationGain >= MIN_ANNOUNCED_GAIN_METERS) {
+            text.append(CLIMBING).append(elevationGain).append(OF_CLIMB);
+        }
+        text.append('.');
+        if (motivation != null) {
+            text.append(' ').append(motivation);
+        }
+        return result();
+    }
+
+    /** "10 minutos de treino. Você já percorreu 1,85 quilômetros." */
+    public synchronized String timeCue(int seconds, int meters) {
+        text.setLength(0);
+        appendDuration(seconds);
+        text.append(OF_TRAINING);
+        appendDistance(meters);
+        text.append('.');
+        return result();
+    }
+
+    /** "Objetivo de 5,00 quilômetros alcançado! Continue assim!" for a distance goal, or of a duration. */
+    public synchronized String goalReached(boolean distanceGoal, int value) {
+        text.setLength(0);
+        text.append(GOAL_OF);
+        if (distanceGoal) {
+            appendDistance(value);
+        } else {
+            appendDuration(value);
+        }
+        text.append(GOAL_REACHED);
+        return result();
+    }
+
+    /** "Tiro 2 de 6. Vai!" */
+    public synchronized String intervalWork(int rep, int reps) {
+        text.setLength(0);
+        text.append(REP).append(rep).append(OF).append(reps).append(GO);
+        return result();
+    }
+
+    /** "Tiro 2 de 6 concluído. Recupere." */
+    public synchronized String intervalRest(int rep, int reps) {
+        text.setLength(0);
+        text.append(REP).append(rep).append(OF).append(reps).append(REP_DONE);
+        return result();
+    }
+
+    /** "Série de 6 tiros concluída! Excelente trabalho." */
+    public synchronized String intervalsDone(int reps) {
+        text.setLength(0);
+        text.append(SET_OF).append(reps).append(SET_DONE);
+        return result();
+    }
+
+    /** "Seu pace está em 6 minutos e 10 segundos por quilômetro. Acelere um pouco." */
+    public synchronized String paceAlert(boolean tooSlow, int secondsPerKm) {
+        text.setLength(0);
+        text.append(PACE_NOW);
+        appendPaceSeconds(secondsPerKm);
+        text.append(tooSlow ? SPEED_UP : EASE_OFF);
+        return result();
+    }
+
+    public synchronized String randomMotivation() {
+        return MOTIVATION_PHRASES[random.nextInt(MOTIVATION_PHRASES.length)];
+    }
+
+    private static boolean isAnnounceable(double paceMinPerKm) {
+        return paceMinPerKm > 0 && paceMinPerKm < MAX_PACE_MIN_PER_KM;
+    }
+
+    private void appendDuration(int seconds) {
+        if (seconds < 60) {
+            text.append(seconds).append(SECONDS);
+            return;
+        }
+        int minutes = seconds / 60;
+        int remainingSeconds = seconds % 60;
+        text.append(minutes).append(minutes == 1 ? MINUTE : MINUTES);
+        if (remainingSeconds != 0) {
+            text.append(AND).append(remainingSeconds).append(remainingSeconds == 1 ? SECOND : SECONDS);
+        }
+    }
+
+    private void appendDistance(int meters) {
+        if (meters < 1000) {
+            text.append(meters).append(METERS);
+            return;
+        }
+        // Two decimals with the Portuguese separator, read as "cinco vírgula vinte"
+        int hundredths = (meters + 5) / 10;
+        text.append(hundredths / 100).append(',');
+        if (hundredths % 100 < 10) text.append('0');
+        text.append(hundredths % 100).append(KILOMETERS);
+    }
+
+    private void appendPace(double minPerKm) {
+        appendPaceSeconds((int) (minPerKm * 60));
+    }
+
+    private void appendPaceSeconds(int totalSeconds) {
+        int minutes = totalSeconds / 60;
+        int seconds = totalSeconds % 60;
+        if (seconds == 0) {
+            text.append(minutes).append(MINUTES);
+        } else {
+            text.append(minutes).append(minutes == 1 ? MINUTE : MINUTES)
+                .append(AND).append(seconds).append(seconds == 1 ? SECOND : SECONDS);
+        }
+        text.append(PER_KM);
+    }
+
+    private String result() {
+        int slot = (int) key(text) & (RECENT_CAPACITY - 1);
+        String cached = recent[slot];
+        if (cached != null && cached.contentEquals(text)) {
+            return cached;
+        }
+        String message = text.toString();
+        recent[slot] = message;
+        return message;
+    }
+}
@@ -0,0 +1,333 @@
+package com.biopeakai.performance;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decides when to speak, from a compiled {@link Workout}. Upcoming triggers wait in two min-heaps,
+ * one per axis (session meters and session milliseconds), so a fix or a timer tick only looks at the
+ * next due trigger of each. Repeating triggers are re-armed at their next nominal position, never
+ * relative to when they fired, so neither a late fix nor a late timer makes them drift.
+ *
+ * Cues closer together than the throttle are held back until a later fix or tick. When several are
+ * due at once only one is spoken: the most important kind, and the latest of that kind, since the
+ * others are stale news by then. Milestones are also recorded as they are crossed, whether or not
+ * they are the cue spoken, since each one leaves a snapshot behind. Owned by the service's location
+ * pipeline thread.
+ */
+public class CueScheduler {
+    public static final int CUE_NONE = -1;
+    public static final int CUE_MILESTONE = 0;      // arg: meters
+    public static final int CUE_TIME = 1;           // arg: session seconds
+    public static final int CUE_GOAL = 2;           // arg: target meters or seconds
+    public static final int CUE_INTERVAL_WORK = 3;  // arg: rep starting
+    public static final int CUE_INTERVAL_REST = 4;  // arg: rep just finished
+    public static final int CUE_INTERVALS_DONE = 5; // arg: reps
+    public static final int CUE_PACE_SLOW = 6;      // arg: current pace s/km
+    public static final int CUE_PACE_FAST = 7;      // arg: current pace s/km
+
+    // Indexed by cue kind; higher wins when cues collide
+    private static final int[] PRIORITY = {1, 0, 4, 3, 3, 4, 2, 2};
+
+    // The pace has to stay out of the band this long before we say anything, and then not more often than this
+    private static final long PACE_CONFIRM_MS = 20_000;
+    private static final long PACE_REPEAT_MS = 90_000;
+
+    private final long minIntervalMs;
+
+    // Trigger table by id; the interval step in progress always uses the last id
+    private int[] cue = new int[0];
+    private int[] axis = new int[0];
+    private double[] every = new double[0];
+    private int[] arg = new int[0];
+    private double[] key = new double[0];
+    // Next position each milestone trigger records at, Double.MAX_VALUE once it is spent or for other cues
+    private double[] recordAt = new double[0];
+    private final Heap[] queues = { new Heap(), new Heap() };
+
+    private List<Workout.Trigger> steps;
+    private int nextStep;
+    private int stepId;
+    private boolean inWork;
+    private int paceMin;
+    private int paceMax;
+
+    private double meters;
+    private long elapsedMs;
+    private long lastCueMs;
+    private long outOfBandSinceMs;
+    private long lastPaceAlertMs;
+
+    private int firedCue = CUE_NONE;
+    private int firedArg;
+    private int[] crossed = new int[4];
+    private int crossedCount;
+
+    public CueScheduler(long minIntervalMs) {
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    /**
+     * Arms {@code workout} for a session at {@code distance} and {@code elapsedMs}: a resumed session
+     * only gets the triggers still ahead of it. Interval reps only run from a fresh start, since where a
+     * rep stood is not known after a restart.
+     */
+    public void load(Workout workout, double distance, long elapsedMs) {
+        int count = workout.triggers.size();
+        int size = count + 1;
+        cue = new int[size];
+        axis = new int[size];
+        every = new double[size];
+        arg = new int[size];
+        key = new double[size];
+        recordAt = new double[size];
+        queues[Workout.AXIS_DISTANCE].reset(size);
+        queues[Workout.AXIS_TIME].reset(size);
+
+        meters = distance;
+        this.elapsedMs = elapsedMs;
+        lastCueMs = Long.MIN_VALUE;
+        outOfBandSinceMs = -1;
+        lastPaceAlertMs = Long.MIN_VALUE;
+        firedCue = CUE_NONE;
+        crossedCount = 0;
+        paceMin = workout.paceMin;
+        paceMax = workout.paceMax;
+
+        for (int id = 0; id < count; id++) {
+            Workout.Trigger trigger = workout.triggers.get(id);
+            cue[id] = trigger.cue;
+            axis[id] = trigger.axis;
+            every[id] = trigger.every;
+            arg[id] = trigger.arg;
+            double position = position(trigger.axis);
+            double at = trigger.at;
+            if (trigger.every > 0 && at <= position) {
+                at += (Math.floor((position - at) / trigger.every) + 1) * trigger.every;
+            }
+            boolean ahead = at > position || (at == position && position == 0);
+            if (ahead) {
+                schedule(id, at);
+            }
+            recordAt[id] = ahead && trigger.cue == CUE_MILESTONE && trigger.axis == Workout.AXIS_DISTANCE
+                    ? at : Double.MAX_VALUE;
+        }
+        recordAt[count] = Double.MAX_VALUE;
+
+        stepId = count;
+        steps = distance == 0 && elapsedMs == 0 ? workout.steps : null;
+        nextStep = 0;
+        inWork = false;
+        if (steps != null && !steps.isEmpty()) {
+            armStep(distance, elapsedMs);
+        }
+    }
+
+    /**
+     * Feeds the session totals after an accepted fix, with the current pace in s/km (0 when unknown).
+     * Returns true when a cue is due now; see {@link #getCue()}. Milestones crossed by the fix are
+     * reported by {@link #getMilestonesCrossed()} either way.
+     */
+    public boolean onFix(double totalMeters, long sessionMs, double paceSecondsPerKm, boolean paused) {
+        meters = Math.max(meters, totalMeters);
+        elapsedMs = Math.max(elapsedMs, sessionMs);
+        firedCue = CUE_NONE;
+        recordMilestones();
+        if (isThrottled()) return false;
+        if (collect()) return true;
+        return checkPace(paceSecondsPerKm, paused);
+    }
+
+    /** Timer tick at {@code sessionMs}, e.g. from an alarm set for {@link #nextTimeDue()}. */
+    public boolean onTime(long sessionMs) {
+        elapsedMs = Math.max(elapsedMs, sessionMs);
+        firedCue = CUE_NONE;
+        crossedCount = 0;
+        if (isThrottled()) return false;
+        return collect();
+    }
+
+    /** Session milliseconds at which the next time trigger is due, or Long.MAX_VALUE if there is none. */
+    public long nextTimeDue() {
+        Heap time = queues[Workout.AXIS_TIME];
+        if (time.isEmpty()) return Long.MAX_VALUE;
+        long due = (long) Math.ceil(key[time.peek()]);
+        return lastCueMs == Long.MIN_VALUE ? due : Math.max(due, lastCueMs + minIntervalMs);
+    }
+
+    // Unlike the spoken cue, neither the throttle nor a more important cue holds these back
+    private void recordMilestones() {
+        crossedCount = 0;
+        for (int id = 0; id < recordAt.length; id++) {
+            while (recordAt[id] <= meters) {
+                if (crossedCount == crossed.length) {
+                    crossed = Arrays.copyOf(crossed, crossedCount * 2);
+                }
+                crossed[crossedCount++] = (int) Math.round(recordAt[id]);
+                recordAt[id] = every[id] > 0 ? recordAt[id] + every[id] : Double.MAX_VALUE;
+            }
+        }
+    }
+
+    private boolean isThrottled() {
+        return lastCueMs != Long.MIN_VALUE && elapsedMs - lastCueMs < minIntervalMs;
+    }
+
+    private boolean collect() {
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int a = Workout.AXIS_DISTANCE; a <= Workout.AXIS_TIME; a++) {
+                Heap queue = queues[a];
+                double position = position(a);
+                while (!queue.isEmpty() && key[queue.peek()] <= position) {
+                    int id = queue.pop();
+                    double at = key[id];
+                    consider(cue[id], argOf(id, at));
+                    if (id == stepId) {
+                        // Arming the next step can make a trigger on the other axis due: go round again
+                        advanceStep(at);
+                        progress = true;
+                    } else if (every[id] > 0) {
+                        // Re-armed one step on, so a jump over several comes off the heap as several
+                        schedule(id, at + every[id]);
+                    }
+                }
+            }
+        }
+        if (firedCue == CUE_NONE) return false;
+        lastCueMs = elapsedMs;
+        return true;
+    }
+
+    private void consider(int kind, int value) {
+        // Ties go to the later cue: triggers come off the heaps in order
+        if (firedCue == CUE_NONE || PRIORITY[kind] >= PRIORITY[firedCue]) {
+            firedCue = kind;
+            firedArg = value;
+        }
+    }
+
+    private int argOf(int id, double at) {
+        if (cue[id] == CUE_MILESTONE) return (int) Math.round(at);
+        if (cue[id] == CUE_TIME) return (int) Math.round(at / 1000);
+        return arg[id];
+    }
+
+    private void advanceStep(double at) {
+        inWork = cue[stepId] == CUE_INTERVAL_WORK;
+        if (nextStep >= steps.size()) return;
+        // The next step counts from where this one nominally ended on its own axis
+        double baseMeters = axis[stepId] == Workout.AXIS_DISTANCE ? at : meters;
+        double baseMs = axis[stepId] == Workout.AXIS_TIME ? at : elapsedMs;
+        armStep(baseMeters, baseMs);
+    }
+
+    private void armStep(double baseMeters, double baseMs) {
+        Workout.Trigger step = steps.get(nextStep++);
+        cue[stepId] = step.cue;
+        axis[stepId] = step.axis;
+        every[stepId] = 0;
+        arg[stepId] = step.arg;
+        schedule(stepId, (step.axis == Workout.AXIS_DISTANCE ? baseMeters : baseMs) + step.at);
+    }
+
+    private boolean checkPace(double paceSecondsPerKm, boolean paused) {
+        boolean applies = paceMin > 0 && !paused && paceSecondsPerKm > 0 && (steps == null || steps.isEmpty() || inWork);
+        if (!applies || (paceSecondsPerKm >= paceMin && paceSecondsPerKm <= paceMax)) {
+            outOfBandSinceMs = -1;
+            return false;
+        }
+        if (outOfBandSinceMs < 0) {
+            outOfBandSinceMs = elapsedMs;
+            return false;
+        }
+        if (elapsedMs - outOfBandSinceMs < PACE_CONFIRM_MS) return false;
+        if (lastPaceAlertMs != Long.MIN_VALUE && elapsedMs - lastPaceAlertMs < PACE_REPEAT_MS) return false;
+
+        firedCue = paceSecondsPerKm > paceMax ? CUE_PACE_SLOW : CUE_PACE_FAST;
+        firedArg = (int) paceSecondsPerKm;
+        lastPaceAlertMs = elapsedMs;
+        lastCueMs = elapsedMs;
+        return true;
+    }
+
+    private double position(int a) {
+        return a == Workout.AXIS_DISTANCE ? meters : elapsedMs;
+    }
+
+    private void schedule(int id, double at) {
+        key[id] = at;
+        queues[axis[id]].push(id);
+    }
+
+    /** How much {@code cue} matters when cues collide; higher wins. */
+    public static int priority(int cue) {
+        return PRIORITY[cue];
+    }
+
+    /** The cue due after the last {@link #onFix} or {@link #onTime} that returned true. */
+    public int getCue() {
+        return firedCue;
+    }
+
+    public int getCueArg() {
+        return firedArg;
+    }
+
+    /** How many milestones the last {@link #onFix} crossed, spoken or not. */
+    public int getMilestonesCrossed() {
+        return crossedCount;
+    }
+
+    /** Meters of the {@code index}th milestone the last {@link #onFix} crossed, in order along each trigger. */
+    public int getMilestoneCrossed(int index) {
+        return crossed[index];
+    }
+
+    /** Binary min-heap of trigger ids ordered by {@link #key}; no allocation after {@link #reset}. */
+    private final class Heap {
+        private int[] ids = new int[0];
+        private int size;
+
+        void reset(int capacity) {
+            ids = new int[capacity];
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return ids[0];
+        }
+
+        void push(int id) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (key[ids[parent]] <= key[id]) break;
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            ids[i] = id;
+        }
+
+        int pop() {
+            int top = ids[0];
+            int last = ids[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && key[ids[child + 1]] < key[ids[child]]) child++;
+                if (key[ids[child]] >= key[last]) break;
+                ids[i] = ids[child];
+                i = child;
+            }
+            if (size > 0) ids[i] = last;
+            return top;
+        }
+    }
+}
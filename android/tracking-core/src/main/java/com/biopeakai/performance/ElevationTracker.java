@@ -0,0 +1,133 @@
+package com.biopeakai.performance;
+
+/**
+ * Altitude and running ascent/descent totals from the barometer, fused with GPS altitude.
+ *
+ * With a fresh pressure reading the totals follow the smoothed pressure altitude, which resolves a
+ * metre or two; GPS altitude only slowly pulls its offset towards the absolute height. Without one
+ * (no sensor, or it stopped reporting) the totals follow heavily smoothed GPS altitude with a wider
+ * band. Either way gain and loss are counted with hysteresis: only once the altitude has moved a full
+ * band away from the last turning point, so noise inside the band adds nothing.
+ *
+ * Every sample is O(1) with no allocation. Both inputs take elapsed-realtime milliseconds, so a recorded
+ * sensor trace replays on the JVM exactly as on the device. Fed on the service's location pipeline thread.
+ */
+public class ElevationTracker {
+    private static final double SEA_LEVEL_HPA = 1013.25;
+    private static final double BARO_TAU_MS = 4000;
+    private static final double GPS_TAU_MS = 15_000;
+    private static final double OFFSET_TAU_MS = 60_000;
+    // Pressure readings may be delivered late in hardware batches; older than this and GPS takes over
+    static final long BARO_STALE_MS = 20_000;
+    private static final double BARO_BAND_M = 2.0;
+    private static final double GPS_BAND_M = 6.0;
+    private static final float MAX_VERTICAL_ACCURACY_M = 25f;
+
+    private static final int SOURCE_NONE = 0;
+    private static final int SOURCE_BARO = 1;
+    private static final int SOURCE_GPS = 2;
+
+    private double baroAltitude;
+    private long lastBaroMs = -1;
+    private double gpsAltitude;
+    private long lastGpsMs = -1;
+    private double offset;
+    private boolean hasOffset;
+
+    private int source = SOURCE_NONE;
+    private double anchor;
+    private double gain;
+    private double loss;
+
+    /** Starts a session, or resumes one with the totals it already had. */
+    public void reset(double initialGain, double initialLoss) {
+        lastBaroMs = -1;
+        lastGpsMs = -1;
+        hasOffset = false;
+        source = SOURCE_NONE;
+        gain = initialGain;
+        loss = initialLoss;
+    }
+
+    /** One barometer reading in hPa. */
+    public void onPressure(long timeMs, float hPa) {
+        if (hPa <= 0) return;
+        double altitude = 44330.0 * (1.0 - Math.pow(hPa / SEA_LEVEL_HPA, 1.0 / 5.255));
+        if (lastBaroMs < 0 || timeMs - lastBaroMs > BARO_STALE_MS) {
+            baroAltitude = altitude;
+        } else if (timeMs > lastBaroMs) {
+            baroAltitude += smoothing(timeMs - lastBaroMs, BARO_TAU_MS) * (altitude - baroAltitude);
+        }
+        lastBaroMs = Math.max(lastBaroMs, timeMs);
+        accumulate(SOURCE_BARO, baroAltitude, BARO_BAND_M);
+    }
+
+    /** One GPS altitude; {@code verticalAccuracy} is NaN when the fix does not report it. */
+    public void onGpsAltitude(long timeMs, double altitude, float verticalAccuracy) {
+        if (Double.isNaN(altitude) || verticalAccuracy > MAX_VERTICAL_ACCURACY_M) return;
+        long dtMs = lastGpsMs < 0 ? 0 : Math.max(0, timeMs - lastGpsMs);
+        if (lastGpsMs < 0) {
+            gpsAltitude = altitude;
+        } else {
+            gpsAltitude += smoothing(dtMs, GPS_TAU_MS) * (altitude - gpsAltitude);
+        }
+        lastGpsMs = Math.max(lastGpsMs, timeMs);
+
+        if (isBarometric(timeMs)) {
+            // Only the absolute height comes from GPS; the totals stay on the barometer
+            double target = altitude - baroAltitude;
+            if (!hasOffset) {
+                offset = target;
+                hasOffset = true;
+            } else {
+                offset += smoothing(dtMs, OFFSET_TAU_MS) * (target - offset);
+            }
+        } else {
+            accumulate(SOURCE_GPS, gpsAltitude, GPS_BAND_M);
+        }
+    }
+
+    private boolean isBarometric(long timeMs) {
+        return lastBaroMs >= 0 && timeMs - lastBaroMs <= BARO_STALE_MS;
+    }
+
+    private void accumulate(int from, double altitude, double band) {
+        if (from != source) {
+            // A new source has its own offset: start over from where it is now, counting nothing
+            source = from;
+            anchor = altitude;
+            return;
+        }
+        double delta = altitude - anchor;
+        if (delta >= band) {
+            gain += delta;
+            anchor = altitude;
+        } else if (delta <= -band) {
+            loss -= delta;
+            anchor = altitude;
+        }
+    }
+
+    /** Fraction of the way to move towards a new sample {@code dtMs} after the last (first-order low-pass). */
+    private static double smoothing(long dtMs, double tauMs) {
+        return dtMs / (tauMs + dtMs);
+    }
+
+    /** Best estimate of the altitude in metres, or NaN before any usable reading. */
+    public double getAltitude() {
+        if (source == SOURCE_BARO && hasOffset) return baroAltitude + offset;
+        return lastGpsMs >= 0 ? gpsAltitude : Double.NaN;
+    }
+
+    public boolean isBarometric() {
+        return source == SOURCE_BARO;
+    }
+
+    public double getGain() {
+        return gain;
+    }
+
+    public double getLoss() {
+        return loss;
+    }
+}
@@ -0,0 +1,213 @@
+package com.biopeakai.performance;
+
+/**
+ * Constant-velocity Kalman filter on a local East/North plane centred on the first fix.
+ * Both axes share the same noise model, so a single 2x2 covariance (a, b, c) serves them.
+ */
+public class KalmanLocationFilter implements LocationFilter {
+    private static final double EARTH_RADIUS_M = 6371008.8;
+    private static final double DEG_TO_RAD = Math.PI / 180.0;
+
+    // Fixes worse than this carry too little information to be worth the outlier risk
+    private static final float MAX_ACCURACY_M = 50.0f;
+    // Initial velocity uncertainty (m/s)^2 - a runner can be anywhere between standing and sprinting
+    private static final double INITIAL_VELOCITY_VARIANCE = 25.0;
+    // Chi-square gate for a 2-DOF innovation (~99.97%)
+    private static final double OUTLIER_GATE = 16.0;
+    // After this many consecutive outliers we assume the filter is lost and re-acquire
+    private static final int MAX_CONSECUTIVE_OUTLIERS = 5;
+    // Distance is only credited once the filtered step and speed both clear their own uncertainty by this factor,
+    // otherwise a runner standing at a crossing slowly random-walks kilometres into the total
+    private static final double STEP_SIGMAS = 2.0;
+    private static final double SPEED_SIGMAS = 2.0;
+    // Re-centre the projection before the flat-earth error becomes noticeable
+    private static final double RECENTER_DISTANCE_M = 20000.0;
+
+    private final double accelerationNoise;
+    private final double minStepMeters;
+
+    private boolean initialized;
+    private double originLat;
+    private double originLon;
+    private double metersPerDegLat;
+    private double metersPerDegLon;
+
+    // State: position (m) and velocity (m/s) on each axis
+    private double east;
+    private double north;
+    private double velEast;
+    private double velNorth;
+
+    // Shared covariance [[a, b], [b, c]]
+    private double a;
+    private double b;
+    private double c;
+
+    private long lastTimeMs;
+    private int consecutiveOutliers;
+
+    // Distance is counted from an anchor so that jitter between credited steps does not accumulate
+    private double anchorEast;
+    private double anchorNorth;
+
+    private double distanceIncrement;
+    private int rejectReason;
+
+    public KalmanLocationFilter() {
+        this(0.3, 2.0);
+    }
+
+    /**
+     * @param accelerationNoise process noise spectral density in m^2/s^3 (how hard the runner can change speed)
+     * @param minStepMeters     filtered displacement needed before distance is credited
+     */
+    public KalmanLocationFilter(double accelerationNoise, double minStepMeters) {
+        this.accelerationNoise = accelerationNoise;
+        this.minStepMeters = minStepMeters;
+    }
+
+    @Override
+    public boolean process(double latitude, double longitude, float accuracy, long timeMs) {
+        distanceIncrement = 0.0;
+
+        if (accuracy <= 0 || accuracy > MAX_ACCURACY_M) {
+            rejectReason = REJECT_ACCURACY;
+            return false;
+        }
+
+        double r = (double) accuracy * accuracy;
+
+        if (!initialized) {
+            initialize(latitude, longitude, r, timeMs);
+            rejectReason = REJECT_NONE;
+            return true;
+        }
+
+        if (timeMs <= lastTimeMs) {
+            rejectReason = REJECT_STALE;
+            return false;
+        }
+
+        double dt = (timeMs - lastTimeMs) / 1000.0;
+        lastTimeMs = timeMs;
+
+        // Predict
+        east += velEast * dt;
+        north += velNorth * dt;
+        double q = accelerationNoise;
+        double dt2 = dt * dt;
+        a += 2.0 * dt * b + dt2 * c + q * dt2 * dt / 3.0;
+        b += dt * c + q * dt2 / 2.0;
+        c += q * dt;
+
+        // Innovation
+        double yEast = (longitude - originLon) * metersPerDegLon - east;
+        double yNorth = (latitude - originLat) * metersPerDegLat - north;
+        double s = a + r;
+
+        if ((yEast * yEast + yNorth * yNorth) / s > OUTLIER_GATE) {
+            if (++consecutiveOutliers >= MAX_CONSECUTIVE_OUTLIERS) {
+                // Probably we were wrong, not the GPS: restart from this fix without crediting the jump
+                initialize(latitude, longitude, r, timeMs);
+            }
+            rejectReason = REJECT_OUTLIER;
+            return false;
+        }
+        consecutiveOutliers = 0;
+
+        // Update
+        double k0 = a / s;
+        double k1 = b / s;
+        east += k0 * yEast;
+        north += k0 * yNorth;
+        velEast += k1 * yEast;
+        velNorth += k1 * yNorth;
+        c -= k1 * b;
+        b -= k0 * b;
+        a -= k0 * a;
+
+        double dEast = east - anchorEast;
+        double dNorth = north - anchorNorth;
+        double step = Math.sqrt(dEast * dEast + dNorth * dNorth);
+        double speedSquared = velEast * velEast + velNorth * velNorth;
+        if (step >= Math.max(minStepMeters, STEP_SIGMAS * Math.sqrt(a))
+                && speedSquared > SPEED_SIGMAS * SPEED_SIGMAS * c) {
+            distanceIncrement = step;
+            anchorEast = east;
+            anchorNorth = north;
+        }
+
+        if (Math.abs(east) > RECENTER_DISTANCE_M || Math.abs(north) > RECENTER_DISTANCE_M) {
+            recenter();
+        }
+
+        rejectReason = REJECT_NONE;
+        return true;
+    }
+
+    private void initialize(double latitude, double longitude, double r, long timeMs) {
+        setOrigin(latitude, longitude);
+        east = 0.0;
+        north = 0.0;
+        velEast = 0.0;
+        velNorth = 0.0;
+        a = r;
+        b = 0.0;
+        c = INITIAL_VELOCITY_VARIANCE;
+        anchorEast = 0.0;
+        anchorNorth = 0.0;
+        lastTimeMs = timeMs;
+        consecutiveOutliers = 0;
+        initialized = true;
+    }
+
+    private void setOrigin(double latitude, double longitude) {
+        originLat = latitude;
+        originLon = longitude;
+        metersPerDegLat = EARTH_RADIUS_M * DEG_TO_RAD;
+        metersPerDegLon = metersPerDegLat * Math.cos(latitude * DEG_TO_RAD);
+    }
+
+    private void recenter() {
+        double lat = getLatitude();
+        double lon = getLongitude();
+        anchorEast -= east;
+        anchorNorth -= north;
+        east = 0.0;
+        north = 0.0;
+        setOrigin(lat, lon);
+    }
+
+    @Override
+    public double getLatitude() {
+        return originLat + north / metersPerDegLat;
+    }
+
+    @Override
+    public double getLongitude() {
+        return originLon + east / metersPerDegLon;
+    }
+
+    @Override
+    public double getSpeed() {
+        return Math.sqrt(velEast * velEast + velNorth * velNorth);
+    }
+
+    @Override
+    public double getDistanceIncrement() {
+        return distanceIncrement;
+    }
+
+    @Override
+    public int getRejectReason() {
+        return rejectReason;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+        distanceIncrement = 0.0;
+        rejectReason = REJECT_NONE;
+        consecutiveOutliers = 0;
+    }
+}
@@ -0,0 +1,31 @@
+package com.biopeakai.performance;
+
+/**
+ * Filter stage between raw GPS fixes and the distance/milestone pipeline.
+ * Implementations run on the location pipeline thread and must not allocate per fix:
+ * results are read back through the getters after {@link #process}.
+ */
+public interface LocationFilter {
+    int REJECT_NONE = 0;
+    int REJECT_ACCURACY = 1;
+    int REJECT_STALE = 2;
+    int REJECT_OUTLIER = 3;
+
+    /** Returns true when the fix was accepted and the getters reflect the filtered position. */
+    boolean process(double latitude, double longitude, float accuracy, long timeMs);
+
+    double getLatitude();
+
+    double getLongitude();
+
+    /** Filtered ground speed in m/s. */
+    double getSpeed();
+
+    /** Meters to add to the session distance for the last accepted fix (0 when below the step threshold). */
+    double getDistanceIncrement();
+
+    /** One of the REJECT_* constants for the last processed fix. */
+    int getRejectReason();
+
+    void reset();
+}
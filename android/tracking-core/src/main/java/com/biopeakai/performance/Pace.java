@@ -0,0 +1,26 @@
+package com.biopeakai.performance;
+
+/** Average pace arithmetic shared by the notification, the cues and the session summary. */
+public final class Pace {
+    // Below this the average is dominated by the time spent waiting for the first fix
+    public static final double MIN_DISTANCE_METERS = 100.0;
+
+    private Pace() {}
+
+    /** Average pace in whole seconds per kilometre, or 0 when too little distance was covered. */
+    public static int secondsPerKm(long elapsedMs, double meters) {
+        if (meters < MIN_DISTANCE_METERS || elapsedMs <= 0) return 0;
+        return (int) (elapsedMs / meters);
+    }
+
+    /** Average pace in minutes per kilometre, or 0 when it cannot be computed. */
+    public static double minutesPerKm(long elapsedSeconds, double meters) {
+        if (meters <= 0 || elapsedSeconds <= 0) return 0;
+        return (elapsedSeconds / 60.0) / (meters / 1000.0);
+    }
+
+    /** The 1-based kilometre in progress at {@code meters}. */
+    public static int currentSplit(double meters) {
+        return (int) (meters / 1000) + 1;
+    }
+}
@@ -0,0 +1,91 @@
+package com.biopeakai.performance;
+
+/**
+ * Current pace over a sliding window of the most recent distance (e.g. the last 400 m), capped at a
+ * maximum span of moving time so a slow walk still reflects the last minute or two. Samples are
+ * (moving time, session distance) pairs in a fixed primitive ring; because both are cumulative the
+ * window's totals are just newest minus oldest, so adding a sample and reading the pace are O(1)
+ * amortized and never allocate.
+ */
+public class RollingPace {
+    // Below this much distance in the window the pace is mostly GPS noise
+    private static final double MIN_SPAN_METERS = 50.0;
+
+    private final double windowMeters;
+    private final long maxWindowMs;
+    private final long[] time;
+    private final double[] distance;
+    private final int mask;
+
+    private int head;   // index of the oldest sample
+    private int count;
+
+    /** {@code capacity} must be a power of two and hold a full window at the fix rate. */
+    public RollingPace(double windowMeters, long maxWindowMs, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.windowMeters = windowMeters;
+        this.maxWindowMs = maxWindowMs;
+        this.time = new long[capacity];
+        this.distance = new double[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public void reset() {
+        head = 0;
+        count = 0;
+    }
+
+    /** Adds a sample; {@code movingMs} must not go backwards except through {@link #rewind}. */
+    public void add(long movingMs, double totalMeters) {
+        if (count > 0 && movingMs <= time[(head + count - 1) & mask]) return;
+
+        if (count == time.length) {
+            head = (head + 1) & mask; // full: the window gets shorter rather than the ring bigger
+            count--;
+        }
+        int slot = (head + count) & mask;
+        time[slot] = movingMs;
+        distance[slot] = totalMeters;
+        count++;
+
+        // Drop the oldest sample while the window is complete without it, or it is simply too old
+        while (count > 2) {
+            int second = (head + 1) & mask;
+            if (totalMeters - distance[second] >= windowMeters || movingMs - time[head] > maxWindowMs) {
+                head = second;
+                count--;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /** Drops samples newer than {@code movingMs}, for when moving time is corrected downwards. */
+    public void rewind(long movingMs) {
+        while (count > 0 && time[(head + count - 1) & mask] > movingMs) {
+            count--;
+        }
+    }
+
+    /** Pace over the window in seconds per kilometre, or 0 while the window is too short. */
+    public double getSecondsPerKm() {
+        double span = getSpanMeters();
+        if (span < MIN_SPAN_METERS) return 0;
+        return (time[(head + count - 1) & mask] - time[head]) / span; // ms per m == s per km
+    }
+
+    /** Speed over the window in m/s, or 0 while the window is too short. */
+    public double getSpeed() {
+        double span = getSpanMeters();
+        if (span < MIN_SPAN_METERS) return 0;
+        long ms = time[(head + count - 1) & mask] - time[head];
+        return ms > 0 ? span * 1000.0 / ms : 0;
+    }
+
+    public double getSpanMeters() {
+        if (count < 2) return 0;
+        return distance[(head + count - 1) & mask] - distance[head];
+    }
+}
@@ -0,0 +1,154 @@
+package com.biopeakai.performance;
+
+/**
+ * Chooses how often to ask for GPS fixes from what the recent fixes say about the runner: fast
+ * sampling for sprints and intervals, the regular rate for a steady run, relaxed sampling for walking
+ * and a slow trickle while auto-paused. Poor accuracy keeps a walker at {@link #NORMAL}, since the
+ * filter needs more fixes to average out the noise.
+ *
+ * Speed thresholds have separate enter and exit bands and a candidate profile must hold for
+ * {@link #CONFIRM_FIXES} consecutive fixes, so one noisy fix never re-issues the location request.
+ * Pausing and resuming switch right away: {@link AutoPause} already has its own hysteresis, and a
+ * runner setting off again should not wait for the faster rate.
+ * Single-threaded, like the rest of the per-fix pipeline.
+ */
+public class SamplingController {
+    // Ordered from the highest sampling rate to the lowest
+    public static final int FAST = 0;
+    public static final int NORMAL = 1;
+    public static final int RELAXED = 2;
+    public static final int STATIONARY = 3; // while auto-paused
+    private static final String[] NAMES = {"fast", "normal", "relaxed", "stationary"};
+
+    private static final long[] INTERVAL_MS = {1000, 3000, 5000, 10000};
+    private static final float[] MIN_DISTANCE_M = {0f, 5f, 5f, 0f};
+    private static final long[] MAX_DELAY_MS = {2000, 5000, 8000, 20000};
+    // With the screen off fixes are only needed for distance and cues, so they can wait in the FLP's batch
+    private static final long[] BATCHED_MAX_DELAY_MS = {30_000, 60_000, 90_000, 120_000};
+
+    // Smoothed speed bands in m/s: ~6:00/km and faster counts as a hard effort, walking is below ~9:15/km
+    private static final double FAST_ENTER = 4.2;
+    private static final double FAST_EXIT = 3.6;
+    private static final double WALK_ENTER = 1.8;
+    private static final double WALK_EXIT = 2.2;
+    private static final float POOR_ACCURACY_M = 20f;
+    private static final double SPEED_SMOOTHING = 0.3;
+    private static final double ACCURACY_SMOOTHING = 0.2;
+    static final int CONFIRM_FIXES = 3;
+    // Never switch more often than this, whatever the fixes say
+    private static final long MIN_SWITCH_INTERVAL_MS = 20_000;
+
+    private int profile = NORMAL;
+    private int candidate = NORMAL;
+    private int candidateFixes;
+    private long lastSwitchMs;
+    private double speed;
+    private double accuracy;
+    private boolean primed;
+    private int switches;
+
+    public void reset(long nowMs) {
+        profile = NORMAL;
+        candidate = NORMAL;
+        candidateFixes = 0;
+        lastSwitchMs = nowMs;
+        speed = 0;
+        accuracy = 0;
+        primed = false;
+        switches = 0;
+    }
+
+    /**
+     * Feeds one fix: {@code speed} is the filtered speed when the fix was accepted and is ignored
+     * otherwise, {@code accuracy} the raw reported accuracy and {@code paused} the auto-pause state
+     * after it. Returns true when the profile changed and the location request should be re-issued.
+     */
+    public boolean onFix(long timeMs, boolean accepted, double speed, float accuracy, boolean paused) {
+        if (!primed) {
+            this.accuracy = accuracy;
+            this.speed = accepted ? speed : 0;
+            primed = true;
+        } else if (accepted && profile == STATIONARY && !paused) {
+            // Setting off again: the standing still history says nothing about the new pace
+            this.accuracy += ACCURACY_SMOOTHING * (accuracy - this.accuracy);
+            this.speed = speed;
+        } else {
+            this.accuracy += ACCURACY_SMOOTHING * (accuracy - this.accuracy);
+            if (accepted) {
+                this.speed += SPEED_SMOOTHING * (speed - this.speed);
+            }
+        }
+
+        int next = paused ? STATIONARY : evaluate();
+        if (next == profile) {
+            candidateFixes = 0;
+            return false;
+        }
+        boolean immediate = next == STATIONARY || profile == STATIONARY;
+        if (next != candidate) {
+            candidate = next;
+            candidateFixes = 0;
+        }
+        if (!immediate && (++candidateFixes < CONFIRM_FIXES || timeMs - lastSwitchMs < MIN_SWITCH_INTERVAL_MS)) {
+            return false;
+        }
+
+        profile = next;
+        candidateFixes = 0;
+        lastSwitchMs = timeMs;
+        switches++;
+        return true;
+    }
+
+    private int evaluate() {
+        int next;
+        // Each band is left through its exit threshold, entered through its enter threshold
+        if (profile == FAST ? speed > FAST_EXIT : speed > FAST_ENTER) {
+            next = FAST;
+        } else if (profile == RELAXED ? speed < WALK_EXIT : speed < WALK_ENTER) {
+            next = RELAXED;
+        } else {
+            next = NORMAL;
+        }
+        // Noisy fixes need a higher rate to average out
+        if (accuracy > POOR_ACCURACY_M && next == RELAXED) {
+            next = NORMAL;
+        }
+        return next;
+    }
+
+    public int getProfile() {
+        return profile;
+    }
+
+    public int getSwitchCount() {
+        return switches;
+    }
+
+    /** Smoothed filtered speed in m/s. */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /** Smoothed reported accuracy in meters. */
+    public double getAccuracy() {
+        return accuracy;
+    }
+
+    public static String profileName(int profile) {
+        return NAMES[profile];
+    }
+
+    public static long intervalMs(int profile) {
+        return INTERVAL_MS[profile];
+    }
+
+    public static float minDistanceMeters(int profile) {
+        return MIN_DISTANCE_M[profile];
+    }
+
+    /** How long the FLP may hold fixes before waking us; {@code batched} when nobody is watching live updates. */
+    public static long maxDelayMs(int profile, boolean batched) {
+        return batched ? BATCHED_MAX_DELAY_MS[profile] : MAX_DELAY_MS[profile];
+    }
+}
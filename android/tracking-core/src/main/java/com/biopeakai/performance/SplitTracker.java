@@ -0,0 +1,137 @@
+package com.biopeakai.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-kilometre splits and manual laps, built incrementally from the accepted fix stream. The moving
+ * time and altitude at a kilometre boundary are interpolated between the two fixes that straddle it,
+ * so a split does not absorb the distance of whichever fix happened to cross the line.
+ *
+ * A resumed session starts its first split at the resume point: that split covers less than a
+ * kilometre and says so in {@link Split#distance}, but its pace is still exact. Fed on the service's
+ * location pipeline thread; nothing allocates except the record for a completed split or lap.
+ */
+public class SplitTracker {
+    public static final int KIND_SPLIT = 0;
+    public static final int KIND_LAP = 1;
+
+    public static class Split {
+        public int kind;
+        /** 1-based kilometre for splits, 1-based lap number within this tracker for laps */
+        public int index;
+        public double distance;        // m covered by this split or lap
+        public long movingTime;        // ms, excluding auto-pauses
+        public int pace;               // s/km, 0 when unknown
+        public double elevationDelta;  // m, end minus start; NaN without altitude at both ends
+        public double totalDistance;   // session distance at the end of it
+
+        public static String kindName(int kind) {
+            return kind == KIND_LAP ? "lap" : "km";
+        }
+    }
+
+    private final double splitMeters;
+    private final List<Split> records = new ArrayList<>();
+
+    private double lastDistance;
+    private long lastMovingMs;
+    private double lastAltitude;
+
+    private double nextBoundary;
+    private double splitStartDistance;
+    private long splitStartMs;
+    private double splitStartAltitude;
+
+    private int lapCount;
+    private double lapStartDistance;
+    private long lapStartMs;
+    private double lapStartAltitude;
+
+    public SplitTracker(double splitMeters) {
+        this.splitMeters = splitMeters;
+    }
+
+    /** Starts a session, or resumes one at {@code distance} and {@code movingMs}; earlier records are dropped. */
+    public void reset(double distance, long movingMs) {
+        records.clear();
+        lastDistance = distance;
+        lastMovingMs = movingMs;
+        lastAltitude = Double.NaN;
+
+        nextBoundary = (Math.floor(distance / splitMeters) + 1) * splitMeters;
+        splitStartDistance = distance;
+        splitStartMs = movingMs;
+        splitStartAltitude = Double.NaN;
+
+        lapCount = 0;
+        lapStartDistance = distance;
+        lapStartMs = movingMs;
+        lapStartAltitude = Double.NaN;
+    }
+
+    /**
+     * Feeds the session totals after an accepted fix; {@code altitude} is NaN when the fix has none.
+     * Returns how many splits were completed by it, available as the last entries of {@link #getRecords()}.
+     */
+    public int onFix(double totalMeters, long movingMs, double altitude) {
+        // Missing altitude on either side: hold the one we have
+        double toAltitude = Double.isNaN(altitude) ? lastAltitude : altitude;
+        double fromAltitude = Double.isNaN(lastAltitude) ? toAltitude : lastAltitude;
+        if (Double.isNaN(splitStartAltitude)) splitStartAltitude = fromAltitude;
+        if (Double.isNaN(lapStartAltitude)) lapStartAltitude = fromAltitude;
+        // Auto-pause takes standing time back out of the clock; never let a split run backwards
+        long fromMs = Math.min(lastMovingMs, movingMs);
+
+        int completed = 0;
+        while (totalMeters >= nextBoundary) {
+            double f = (nextBoundary - lastDistance) / (totalMeters - lastDistance);
+            long boundaryMs = fromMs + Math.round(f * (movingMs - fromMs));
+            double boundaryAltitude = fromAltitude + f * (toAltitude - fromAltitude);
+
+            add(KIND_SPLIT, (int) Math.round(nextBoundary / splitMeters), nextBoundary - splitStartDistance,
+                    boundaryMs - splitStartMs, boundaryAltitude - splitStartAltitude, nextBoundary);
+            splitStartDistance = nextBoundary;
+            splitStartMs = boundaryMs;
+            splitStartAltitude = boundaryAltitude;
+            nextBoundary += splitMeters;
+            completed++;
+        }
+
+        lastDistance = totalMeters;
+        lastMovingMs = movingMs;
+        lastAltitude = toAltitude;
+        return completed;
+    }
+
+    /** Closes the current lap at the last fix. Returns the lap, or null if it covered no distance. */
+    public Split lap() {
+        if (lastDistance <= lapStartDistance) return null;
+
+        lapCount++;
+        Split lap = add(KIND_LAP, lapCount, lastDistance - lapStartDistance, lastMovingMs - lapStartMs,
+                lastAltitude - lapStartAltitude, lastDistance);
+        lapStartDistance = lastDistance;
+        lapStartMs = lastMovingMs;
+        lapStartAltitude = lastAltitude;
+        return lap;
+    }
+
+    private Split add(int kind, int index, double distance, long movingMs, double elevationDelta, double total) {
+        Split split = new Split();
+        split.kind = kind;
+        split.index = index;
+        split.distance = distance;
+        split.movingTime = Math.max(0, movingMs);
+        split.pace = distance > 0 ? (int) (split.movingTime / distance) : 0; // ms per m == s per km
+        split.elevationDelta = elevationDelta;
+        split.totalDistance = total;
+        records.add(split);
+        return split;
+    }
+
+    /** Completed splits and laps in the order they happened. */
+    public List<Split> getRecords() {
+        return records;
+    }
+}
@@ -0,0 +1,105 @@
+package com.biopeakai.performance;
+
+/**
+ * The per-fix tracking logic without any Android types: filter the raw fix, accumulate distance,
+ * keep the auto-pause moving-time clock and the rolling current pace. Owned by a single thread (the
+ * service's location pipeline) and allocation-free, so the JMH suite measures exactly what runs on the device.
+ */
+public class TrackingCore {
+    // Current pace covers the last 400 m, or the last two minutes of moving time if that is shorter
+    private static final double PACE_WINDOW_METERS = 400.0;
+    private static final long PACE_WINDOW_MAX_MS = 120_000;
+    private static final int PACE_WINDOW_CAPACITY = 256; // > 2 minutes at 1 Hz
+
+    private final LocationFilter filter;
+    private final AutoPause autoPause = new AutoPause();
+    private final RollingPace rollingPace = new RollingPace(PACE_WINDOW_METERS, PACE_WINDOW_MAX_MS, PACE_WINDOW_CAPACITY);
+
+    private boolean hasFix;
+    private double totalDistance;
+    private double distanceIncrement;
+
+    public TrackingCore(LocationFilter filter) {
+        this.filter = filter;
+    }
+
+    /** Starts a session, or resumes one from {@code initialDistance} and {@code initialMovingMs}. */
+    public void reset(double initialDistance, long initialMovingMs) {
+        filter.reset();
+        autoPause.reset(initialMovingMs);
+        rollingPace.reset();
+        hasFix = false;
+        totalDistance = initialDistance;
+        distanceIncrement = 0.0;
+    }
+
+    /**
+     * Feeds one raw fix. Returns false when the filter rejected it, in which case only
+     * {@link LocationFilter#getRejectReason()} is meaningful.
+     */
+    public boolean process(double latitude, double longitude, float accuracy, long timeMs) {
+        distanceIncrement = 0.0;
+        if (!filter.process(latitude, longitude, accuracy, timeMs)) {
+            autoPause.onFix(timeMs, false, 0, 0, 0);
+            return false;
+        }
+        autoPause.onFix(timeMs, true, filter.getLatitude(), filter.getLongitude(), filter.getSpeed());
+
+        // The first accepted fix only positions us
+        if (hasFix) {
+            distanceIncrement = filter.getDistanceIncrement();
+        }
+        hasFix = true;
+
+        totalDistance += distanceIncrement;
+
+        if (autoPause.hasChanged() && autoPause.isPaused()) {
+            // Pausing took the time spent standing back out of moving time
+            rollingPace.rewind(autoPause.getMovingTimeMs());
+        }
+        rollingPace.add(autoPause.getMovingTimeMs(), totalDistance);
+        return true;
+    }
+
+    /** Whether a fix was accepted since the last reset. */
+    public boolean hasFix() {
+        return hasFix;
+    }
+
+    public boolean isPaused() {
+        return autoPause.isPaused();
+    }
+
+    /** Whether the last fix paused or resumed the runner. */
+    public boolean hasPauseChanged() {
+        return autoPause.hasChanged();
+    }
+
+    /** Time spent moving, excluding auto-pauses; the base for every announced pace. */
+    public long getMovingTimeMs() {
+        return autoPause.getMovingTimeMs();
+    }
+
+    /** Pace over the last stretch of the run in seconds per km, or 0 while there is too little of it. */
+    public double getCurrentPace() {
+        return rollingPace.getSecondsPerKm();
+    }
+
+    /** Average pace over moving time in seconds per km, or 0 near the start. */
+    public int getMovingPace() {
+        return Pace.secondsPerKm(autoPause.getMovingTimeMs(), totalDistance);
+    }
+
+    public LocationFilter getFilter() {
+        return filter;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    /** Meters credited by the last accepted fix. */
+    public double getDistanceIncrement() {
+        return distanceIncrement;
+    }
+}
@@ -0,0 +1,221 @@
+package com.biopeakai.performance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streams the text-to-speech edge function response ({@code {"audioContent": "<base64>", ...}}) straight
+ * into a pooled {@link AudioBuffer}. The base64 payload is decoded as it is read, so the clip is never
+ * held as a response String, a JSONObject field or a data URL on the way to the player.
+ */
+public final class TtsResponseDecoder {
+    private static final String AUDIO_FIELD = "audioContent";
+    private static final String ERROR_FIELD = "error";
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+        // URL-safe variants, in case the function ever switches encoders
+        BASE64_VALUES['-'] = 62;
+        BASE64_VALUES['_'] = 63;
+    }
+
+    private final InputStream in;
+    private final byte[] readBuffer = new byte[CHUNK_SIZE];
+    private int readPos = 0;
+    private int readLimit = 0;
+
+    private TtsResponseDecoder(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Decodes the audio of one response. {@code contentLength} (or -1) sizes the buffer up front.
+     * The caller closes the stream.
+     */
+    public static AudioBuffer decode(InputStream in, long contentLength) throws IOException {
+        return new TtsResponseDecoder(in).readResponse(contentLength);
+    }
+
+    private AudioBuffer readResponse(long contentLength) throws IOException {
+        expect('{');
+        String error = null;
+        int c = nextNonWhitespace();
+        if (c == '}') {
+            throw new IOException("Failed to get audio content");
+        }
+        while (true) {
+            if (c != '"') throw syntaxError(c);
+            String key = readShortString();
+            expect(':');
+            if (AUDIO_FIELD.equals(key)) {
+                expect('"');
+                return readBase64(contentLength);
+            } else if (ERROR_FIELD.equals(key) && peekNonWhitespace() == '"') {
+                read();
+                error = readShortString();
+            } else {
+                skipValue();
+            }
+
+            c = nextNonWhitespace();
+            if (c == '}') break;
+            if (c != ',') throw syntaxError(c);
+            c = nextNonWhitespace();
+        }
+        throw new IOException(error != null ? "TTS error: " + error : "Failed to get audio content");
+    }
+
+    private AudioBuffer readBase64(long contentLength) throws IOException {
+        AudioBuffer audio = AudioBuffer.obtain();
+        try {
+            if (contentLength > 0) {
+                audio.ensureCapacity((int) Math.min(Integer.MAX_VALUE, contentLength / 4 * 3 + 3));
+            }
+
+            byte[] out = new byte[CHUNK_SIZE];
+            int outLen = 0;
+            int quantum = 0;
+            int bits = 0;
+            while (true) {
+                int c = read();
+                if (c == '"') break;
+                if (c == '\\') {
+                    c = read();
+                    // JSON encoders may escape '/'; \n and friends are line breaks inside the payload
+                    if (c != '/') continue;
+                } else if (c == '=' || c == '\n' || c == '\r' || c == ' ') {
+                    continue;
+                }
+                int value = c < 128 ? BASE64_VALUES[c] : -1;
+                if (value < 0) {
+                    throw new IOException("Invalid base64 character in audioContent: " + (char) c);
+                }
+
+                quantum = (quantum << 6) | value;
+                if (++bits == 4) {
+                    if (outLen > out.length - 3) {
+                        audio.write(out, 0, outLen);
+                        outLen = 0;
+                    }
+                    out[outLen++] = (byte) (quantum >> 16);
+                    out[outLen++] = (byte) (quantum >> 8);
+                    out[outLen++] = (byte) quantum;
+                    quantum = 0;
+                    bits = 0;
+                }
+            }
+
+            // Unpadded or '='-padded tail
+            if (bits == 2) {
+                out[outLen++] = (byte) (quantum >> 4);
+            } else if (bits == 3) {
+                out[outLen++] = (byte) (quantum >> 10);
+                out[outLen++] = (byte) (quantum >> 2);
+            } else if (bits == 1) {
+                throw new IOException("Truncated base64 in audioContent");
+            }
+            audio.write(out, 0, outLen);
+
+            if (audio.length() == 0) {
+                throw new IOException("Empty audioContent");
+            }
+            return audio;
+        } catch (IOException | RuntimeException e) {
+            audio.release();
+            throw e;
+        }
+    }
+
+    // MARK: - JSON scanning
+
+    private String readShortString() throws IOException {
+        StringBuilder sb = new StringBuilder(16);
+        while (true) {
+            int c = read();
+            if (c == '"') return sb.toString();
+            if (c == '\\') {
+                c = read();
+                if (c == 'u') {
+                    sb.append((char) Integer.parseInt(new String(new char[] {
+                        (char) read(), (char) read(), (char) read(), (char) read()
+                    }), 16));
+                    continue;
+                }
+                if (c == 'n') c = '\n';
+                else if (c == 't') c = '\t';
+            }
+            // Keys and error messages are short ASCII in practice; bytes beyond that are kept as-is
+            sb.append((char) c);
+        }
+    }
+
+    private void skipValue() throws IOException {
+        int depth = 0;
+        while (true) {
+            int c = peekNonWhitespace();
+            if (depth == 0 && (c == ',' || c == '}' || c == ']')) return;
+            read();
+            if (c == '"') {
+                skipString();
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == '"') return;
+            if (c == '\\') read();
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = nextNonWhitespace();
+        if (c != expected) throw syntaxError(c);
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = peekNonWhitespace();
+        readPos++;
+        return c;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            if (readPos == readLimit) fill();
+            int c = readBuffer[readPos] & 0xFF;
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            readPos++;
+        }
+    }
+
+    private int read() throws IOException {
+        if (readPos == readLimit) fill();
+        return readBuffer[readPos++] & 0xFF;
+    }
+
+    private void fill() throws IOException {
+        int n = in.read(readBuffer, 0, readBuffer.length);
+        if (n <= 0) {
+            throw new IOException("Unexpected end of TTS response");
+        }
+        readPos = 0;
+        readLimit = n;
+    }
+
+    private static IOException syntaxError(int c) {
+        return new IOException("Malformed TTS response near '" + (char) c + "'");
+    }
+}
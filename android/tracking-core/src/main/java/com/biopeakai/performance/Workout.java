@@ -0,0 +1,107 @@
+package com.biopeakai.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled cue program for one session: the triggers {@link CueScheduler} arms, built once when the
+ * session is configured and not changed afterwards. Triggers fire on a distance (session meters) or a
+ * time (session milliseconds) axis, once or repeating; interval reps are a sequence of steps, each
+ * armed when the previous one fires; a pace band raises alerts while the runner is outside it.
+ */
+public class Workout {
+    public static final int AXIS_DISTANCE = 0;
+    public static final int AXIS_TIME = 1;
+
+    public static final String GOAL_DISTANCE = "target_distance";
+    public static final String GOAL_PACE = "target_pace";
+    public static final String GOAL_DURATION = "target_duration";
+
+    // Spoken pace tolerance around a target pace
+    private static final int PACE_TOLERANCE_SECONDS = 15;
+
+    static final class Trigger {
+        final int cue;
+        final int axis;
+        final double at;
+        final double every; // 0 for a one-shot trigger
+        final int arg;
+
+        Trigger(int cue, int axis, double at, double every, int arg) {
+            this.cue = cue;
+            this.axis = axis;
+            this.at = at;
+            this.every = every;
+            this.arg = arg;
+        }
+    }
+
+    final List<Trigger> triggers = new ArrayList<>();
+    // Interval steps: each one's length is measured from where the previous one fired
+    final List<Trigger> steps = new ArrayList<>();
+    int reps;
+    int paceMin; // s/km, 0 when there is no band
+    int paceMax;
+
+    /**
+     * The program for a training goal from the session setup: the milestone every
+     * {@code milestoneMeters}, plus a goal cue or a pace band when the goal has a target. Targets that
+     * are 0 or missing are ignored.
+     */
+    public static Workout fromGoal(String goalType, int milestoneMeters, double targetDistance,
+                                   double targetPaceMinPerKm, long targetDurationSeconds) {
+        Workout workout = new Workout().every(AXIS_DISTANCE, milestoneMeters, CueScheduler.CUE_MILESTONE);
+        if (GOAL_DISTANCE.equals(goalType) && targetDistance > 0) {
+            workout.at(AXIS_DISTANCE, targetDistance, CueScheduler.CUE_GOAL, (int) targetDistance);
+        } else if (GOAL_DURATION.equals(goalType) && targetDurationSeconds > 0) {
+            workout.at(AXIS_TIME, targetDurationSeconds * 1000.0, CueScheduler.CUE_GOAL, (int) targetDurationSeconds);
+        } else if (GOAL_PACE.equals(goalType) && targetPaceMinPerKm > 0) {
+            int target = (int) Math.round(targetPaceMinPerKm * 60);
+            workout.paceBand(target - PACE_TOLERANCE_SECONDS, target + PACE_TOLERANCE_SECONDS);
+        }
+        return workout;
+    }
+
+    /** A cue every {@code step} along {@code axis}: at step, 2 * step, ... */
+    public Workout every(int axis, double step, int cue) {
+        triggers.add(new Trigger(cue, axis, step, step, 0));
+        return this;
+    }
+
+    /** A single cue at {@code value} along {@code axis}, carrying {@code arg}. */
+    public Workout at(int axis, double value, int cue, int arg) {
+        triggers.add(new Trigger(cue, axis, value, 0, arg));
+        return this;
+    }
+
+    /**
+     * {@code reps} work bouts of {@code work} along {@code workAxis}, each followed by a rest of
+     * {@code restMs} (none after the last). The first bout starts with the session.
+     */
+    public Workout intervals(int reps, int workAxis, double work, long restMs) {
+        steps.clear();
+        this.reps = reps;
+        for (int rep = 1; rep <= reps; rep++) {
+            // A step's length is how long the step before it lasts
+            steps.add(new Trigger(CueScheduler.CUE_INTERVAL_WORK, AXIS_TIME, rep == 1 ? 0 : restMs, 0, rep));
+            if (rep < reps) {
+                steps.add(new Trigger(CueScheduler.CUE_INTERVAL_REST, workAxis, work, 0, rep));
+            }
+        }
+        if (reps > 0) {
+            steps.add(new Trigger(CueScheduler.CUE_INTERVALS_DONE, workAxis, work, 0, reps));
+        }
+        return this;
+    }
+
+    /** Alerts while the pace is slower than {@code maxSecondsPerKm} or faster than {@code minSecondsPerKm}. */
+    public Workout paceBand(int minSecondsPerKm, int maxSecondsPerKm) {
+        paceMin = minSecondsPerKm;
+        paceMax = maxSecondsPerKm;
+        return this;
+    }
+
+    public int getReps() {
+        return reps;
+    }
+}
@@ -0,0 +1,68 @@
+package com.biopeakai.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class CoachingMessagesTest {
+    private final CoachingMessages messages = new CoachingMessages(1);
+
+    @Test
+    public void milestoneTexts() {
+        assertEquals("Você completou 1500 metros", messages.milestonePrefix(1500));
+        assertEquals("em 45 segundos. Continue assim!", messages.milestoneSuffix(45, 0));
+        assertEquals("em 1 minuto e 1 segundo. Seu pace atual é 5 minutos por quilômetro.",
+                messages.milestoneSuffix(61, 5.0));
+        assertEquals("em 12 minutos. Seu pace atual é 4 minutos e 30 segundos por quilômetro.",
+                messages.milestoneSuffix(720, 4.5));
+        assertEquals("em 12 minutos. Continue assim!", messages.milestoneSuffix(720, 250));
+    }
+
+    @Test
+    public void completionTexts() {
+        assertEquals("Parabéns! Você completou seu treino em 3 minutos, percorrendo uma distância de 800 metros"
+                        + " em um pace de 3 minutos e 45 segundos por quilômetro. Ótimo trabalho!",
+                messages.completion(true, 800, 180, 3.75, 4, "Ótimo trabalho!"));
+        assertEquals("em 30 minutos e 5 segundos, percorrendo uma distância de 5,06 quilômetros,"
+                        + " com 85 metros de subida.",
+                messages.completion(false, 5055, 1805, 0, 85, null));
+        assertEquals("em 1 minuto, percorrendo uma distância de 1,00 quilômetros.",
+                messages.completion(false, 1004, 60, 0, 0, null));
+    }
+
+    @Test
+    public void workoutCueTexts() {
+        assertEquals("10 minutos de treino. Você já percorreu 1,85 quilômetros.", messages.timeCue(600, 1848));
+        assertEquals("Objetivo de 5,00 quilômetros alcançado! Continue assim!", messages.goalReached(true, 5000));
+        assertEquals("Tiro 2 de 6. Vai!", messages.intervalWork(2, 6));
+        assertEquals("Tiro 2 de 6 concluído. Recupere.", messages.intervalRest(2, 6));
+        assertEquals("Seu pace está em 6 minutos e 10 segundos por quilômetro. Acelere um pouco.",
+                messages.paceAlert(true, 370));
+    }
+
+    @Test
+    public void recurringMessagesReuseTheSameString() {
+        String first = messages.milestoneSuffix(300, 5.5);
+        messages.milestonePrefix(500);
+        assertSame(first, messages.milestoneSuffix(300, 5.5));
+    }
+
+    @Test
+    public void keysAreStable() {
+        assertEquals(CoachingMessages.key("Você completou 500 metros"),
+                CoachingMessages.key(new StringBuilder("Você completou ").append(500).append(" metros")));
+        assertNotEquals(CoachingMessages.key("Você completou 500 metros"),
+                CoachingMessages.key("Você completou 1000 metros"));
+        assertEquals(0xcbf29ce484222325L, CoachingMessages.key(""));
+    }
+
+    @Test
+    public void seededMotivationIsReproducible() {
+        CoachingMessages other = new CoachingMessages(1);
+        for (int i = 0; i < 10; i++) {
+            assertSame(messages.randomMotivation(), other.randomMotivation());
+        }
+    }
+}
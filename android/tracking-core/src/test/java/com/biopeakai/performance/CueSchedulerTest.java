@@ -0,0 +1,154 @@
+package com.biopeakai.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CueSchedulerTest {
+    private static CueScheduler scheduler(Workout workout, double distance, long elapsedMs) {
+        CueScheduler cues = new CueScheduler(2000);
+        cues.load(workout, distance, elapsedMs);
+        return cues;
+    }
+
+    @Test
+    public void milestonesAreReportedOncePerSegment() {
+        CueScheduler cues = scheduler(Workout.fromGoal(null, 500, 0, 0, 0), 0, 0);
+
+        assertFalse(cues.onFix(499, 1000, 0, false));
+        assertTrue(cues.onFix(501, 2000, 0, false));
+        assertEquals(CueScheduler.CUE_MILESTONE, cues.getCue());
+        assertEquals(500, cues.getCueArg());
+        assertFalse(cues.onFix(900, 10000, 0, false));
+        assertTrue(cues.onFix(1000, 11000, 0, false));
+        assertEquals(1000, cues.getCueArg());
+    }
+
+    @Test
+    public void milestonesAreThrottledAndCollapsed() {
+        CueScheduler cues = scheduler(Workout.fromGoal(null, 500, 0, 0, 0), 0, 0);
+
+        assertTrue(cues.onFix(510, 1000, 0, false));
+        // Too soon after the last cue: held back until a later fix
+        assertFalse(cues.onFix(1005, 2000, 0, false));
+        // A jump over two segments is announced once
+        assertTrue(cues.onFix(1600, 4000, 0, false));
+        assertEquals(1500, cues.getCueArg());
+        assertFalse(cues.onFix(1700, 9000, 0, false));
+    }
+
+    @Test
+    public void resumeArmsOnlyTheTriggersAhead() {
+        CueScheduler cues = scheduler(Workout.fromGoal(Workout.GOAL_DISTANCE, 500, 2000, 0, 0), 2400, 600_000);
+
+        assertFalse(cues.onFix(2450, 601_000, 0, false));
+        assertTrue(cues.onFix(2500, 602_000, 0, false));
+        assertEquals(CueScheduler.CUE_MILESTONE, cues.getCue());
+        assertEquals(2500, cues.getCueArg());
+    }
+
+    @Test
+    public void timeTriggersFireWithoutFixesAndDoNotDrift() {
+        CueScheduler cues = scheduler(new Workout().every(Workout.AXIS_TIME, 300_000, CueScheduler.CUE_TIME), 0, 0);
+
+        assertEquals(300_000, cues.nextTimeDue());
+        assertFalse(cues.onTime(299_999));
+        // A late tick still re-arms on the nominal 5-minute grid
+        assertTrue(cues.onTime(301_500));
+        assertEquals(CueScheduler.CUE_TIME, cues.getCue());
+        assertEquals(300, cues.getCueArg());
+        assertEquals(600_000, cues.nextTimeDue());
+    }
+
+    @Test
+    public void goalOutranksAMilestoneDueAtTheSameFix() {
+        CueScheduler cues = scheduler(Workout.fromGoal(Workout.GOAL_DISTANCE, 500, 1000, 0, 0), 0, 0);
+
+        assertTrue(cues.onFix(600, 200_000, 0, false));
+        assertTrue(cues.onFix(1010, 400_000, 0, false));
+        assertEquals(CueScheduler.CUE_GOAL, cues.getCue());
+        assertEquals(1000, cues.getCueArg());
+    }
+
+    @Test
+    public void milestonesAreRecordedWhenAnotherCueIsSpoken() {
+        CueScheduler cues = scheduler(Workout.fromGoal(Workout.GOAL_DISTANCE, 500, 1000, 0, 0), 0, 0);
+
+        assertTrue(cues.onFix(500, 200_000, 0, false));
+        assertEquals(1, cues.getMilestonesCrossed());
+        assertEquals(500, cues.getMilestoneCrossed(0));
+        // The goal is spoken, but the milestone under it still counts
+        assertTrue(cues.onFix(1000, 400_000, 0, false));
+        assertEquals(CueScheduler.CUE_GOAL, cues.getCue());
+        assertEquals(1, cues.getMilestonesCrossed());
+        assertEquals(1000, cues.getMilestoneCrossed(0));
+        assertFalse(cues.onFix(1100, 500_000, 0, false));
+        assertEquals(0, cues.getMilestonesCrossed());
+    }
+
+    @Test
+    public void milestonesAreRecordedWhileThrottled() {
+        CueScheduler cues = scheduler(Workout.fromGoal(null, 500, 0, 0, 0), 0, 0);
+
+        assertTrue(cues.onFix(510, 1000, 0, false));
+        assertFalse(cues.onFix(1005, 2000, 0, false));
+        assertEquals(1, cues.getMilestonesCrossed());
+        assertEquals(1000, cues.getMilestoneCrossed(0));
+        // Each milestone is recorded once, and a jump over several records them all
+        assertTrue(cues.onFix(2600, 4000, 0, false));
+        assertEquals(2500, cues.getCueArg());
+        assertEquals(3, cues.getMilestonesCrossed());
+        assertEquals(1500, cues.getMilestoneCrossed(0));
+        assertEquals(2500, cues.getMilestoneCrossed(2));
+    }
+
+    @Test
+    public void intervalsRunWorkRestAndDone() {
+        // 3 x 400 m with 60 s rest
+        CueScheduler cues = scheduler(new Workout().intervals(3, Workout.AXIS_DISTANCE, 400, 60_000), 0, 0);
+
+        assertTrue(cues.onTime(0));
+        assertEquals(CueScheduler.CUE_INTERVAL_WORK, cues.getCue());
+        assertEquals(1, cues.getCueArg());
+
+        assertTrue(cues.onFix(405, 100_000, 0, false));
+        assertEquals(CueScheduler.CUE_INTERVAL_REST, cues.getCue());
+        assertEquals(160_000, cues.nextTimeDue());
+
+        assertTrue(cues.onTime(160_000));
+        assertEquals(CueScheduler.CUE_INTERVAL_WORK, cues.getCue());
+        assertEquals(2, cues.getCueArg());
+
+        // The second rep is measured from where the rest ended
+        assertFalse(cues.onFix(700, 220_000, 0, false));
+        assertTrue(cues.onFix(850, 250_000, 0, false));
+        assertEquals(CueScheduler.CUE_INTERVAL_REST, cues.getCue());
+        assertTrue(cues.onTime(310_000));
+        assertTrue(cues.onFix(1300, 400_000, 0, false));
+        assertEquals(CueScheduler.CUE_INTERVALS_DONE, cues.getCue());
+        assertEquals(3, cues.getCueArg());
+        assertEquals(Long.MAX_VALUE, cues.nextTimeDue());
+    }
+
+    @Test
+    public void paceBandAlertsOnlyOnceConfirmed() {
+        // 5:00 min/km target: 285..315 s/km
+        CueScheduler cues = scheduler(Workout.fromGoal(Workout.GOAL_PACE, 100_000, 0, 5.0, 0), 0, 0);
+
+        assertFalse(cues.onFix(10, 10_000, 300, false));
+        assertFalse(cues.onFix(20, 20_000, 340, false));
+        assertFalse(cues.onFix(30, 30_000, 340, true));
+        assertFalse(cues.onFix(40, 40_000, 340, false));
+        assertTrue(cues.onFix(50, 60_000, 345, false));
+        assertEquals(CueScheduler.CUE_PACE_SLOW, cues.getCue());
+        assertEquals(345, cues.getCueArg());
+        // Still slow, but not repeated so soon
+        assertFalse(cues.onFix(60, 120_000, 345, false));
+        assertFalse(cues.onFix(65, 130_000, 300, false));
+        assertFalse(cues.onFix(70, 140_000, 250, false));
+        assertTrue(cues.onFix(80, 160_000, 250, false));
+        assertEquals(CueScheduler.CUE_PACE_FAST, cues.getCue());
+    }
+}
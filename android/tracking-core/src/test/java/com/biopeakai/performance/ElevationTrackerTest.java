@@ -0,0 +1,94 @@
+package com.biopeakai.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ElevationTrackerTest {
+    private final Random random = new Random(7);
+
+    private static float pressureAt(double altitude) {
+        return (float) (1013.25 * Math.pow(1.0 - altitude / 44330.0, 5.255));
+    }
+
+    /** Out 1 m up every 10 s for 1000 s, then back down: 100 m of gain and of loss. */
+    private static double hill(int second) {
+        return 750.0 + (second <= 1000 ? second : 2000 - second) / 10.0;
+    }
+
+    @Test
+    public void gpsNoiseOnFlatGroundAddsAlmostNothing() {
+        ElevationTracker elevation = new ElevationTracker();
+        elevation.reset(0, 0);
+
+        double naiveGain = 0;
+        double previous = Double.NaN;
+        for (int s = 0; s < 3600; s++) {
+            double altitude = 20.0 + random.nextGaussian() * 5.0;
+            if (altitude > previous) naiveGain += altitude - previous;
+            previous = altitude;
+            elevation.onGpsAltitude(s * 1000L, altitude, 8f);
+        }
+
+        assertTrue(naiveGain > 5000);
+        assertTrue("gain " + elevation.getGain(), elevation.getGain() < 25);
+        assertFalse(elevation.isBarometric());
+    }
+
+    @Test
+    public void barometerTracksAHillAndGpsFixesTheAbsoluteHeight() {
+        ElevationTracker elevation = new ElevationTracker();
+        elevation.reset(0, 0);
+
+        for (int s = 0; s <= 2000; s++) {
+            double altitude = hill(s);
+            elevation.onPressure(s * 1000L, pressureAt(altitude + random.nextGaussian() * 0.3));
+            if (s % 3 == 0) {
+                // Fixes every 3 s, biased 15 m low on top of the noise
+                elevation.onGpsAltitude(s * 1000L, altitude - 15.0 + random.nextGaussian() * 5.0, 10f);
+            }
+        }
+
+        assertTrue(elevation.isBarometric());
+        assertEquals(100, elevation.getGain(), 6);
+        assertEquals(100, elevation.getLoss(), 6);
+        assertEquals(735, elevation.getAltitude(), 6);
+    }
+
+    @Test
+    public void gpsTakesOverWhenTheBarometerGoesQuiet() {
+        ElevationTracker elevation = new ElevationTracker();
+        elevation.reset(40, 10);
+
+        for (int s = 0; s <= 600; s++) {
+            elevation.onPressure(s * 1000L, pressureAt(hill(s)));
+            elevation.onGpsAltitude(s * 1000L, hill(s), 10f);
+        }
+        double gainWithBarometer = elevation.getGain();
+        assertEquals(40 + 60, gainWithBarometer, 3);
+
+        // No more pressure readings: the next fixes switch over without a jump in the totals
+        for (int s = 601; s <= 1000; s++) {
+            elevation.onGpsAltitude(s * 1000L, hill(s), 10f);
+        }
+        assertFalse(elevation.isBarometric());
+        assertEquals(40 + 100, elevation.getGain(), 8);
+        assertEquals(10, elevation.getLoss(), 0);
+    }
+
+    @Test
+    public void inaccurateAltitudesAreIgnored() {
+        ElevationTracker elevation = new ElevationTracker();
+        elevation.reset(0, 0);
+        assertTrue(Double.isNaN(elevation.getAltitude()));
+
+        elevation.onGpsAltitude(0, 100.0, 80f);
+        assertTrue(Double.isNaN(elevation.getAltitude()));
+        elevation.onGpsAltitude(1000, 100.0, Float.NaN);
+        assertEquals(100, elevation.getAltitude(), 0);
+    }
+}
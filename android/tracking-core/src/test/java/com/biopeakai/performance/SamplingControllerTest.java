@@ -0,0 +1,70 @@
+package com.biopeakai.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SamplingControllerTest {
+    private final SamplingController controller = new SamplingController();
+    private long timeMs = 0;
+
+    private void feed(int seconds, double speed, float accuracy, boolean paused) {
+        for (int i = 0; i < seconds; i += 3) {
+            timeMs += 3000;
+            controller.onFix(timeMs, true, speed, accuracy, paused);
+        }
+    }
+
+    @Test
+    public void steadyRunStaysNormal() {
+        controller.reset(timeMs);
+        feed(600, 3.0, 5f, false);
+        assertEquals(SamplingController.NORMAL, controller.getProfile());
+        assertEquals(0, controller.getSwitchCount());
+    }
+
+    @Test
+    public void sprintSwitchesToFastAndBack() {
+        controller.reset(timeMs);
+        feed(60, 5.0, 5f, false);
+        assertEquals(SamplingController.FAST, controller.getProfile());
+
+        // Inside the hysteresis band: stays fast
+        feed(60, 3.8, 5f, false);
+        assertEquals(SamplingController.FAST, controller.getProfile());
+
+        feed(60, 3.0, 5f, false);
+        assertEquals(SamplingController.NORMAL, controller.getProfile());
+    }
+
+    @Test
+    public void pausingAndResumingSwitchImmediately() {
+        controller.reset(timeMs);
+        feed(3, 0.0, 5f, true);
+        assertEquals(SamplingController.STATIONARY, controller.getProfile());
+
+        feed(3, 3.0, 5f, false);
+        assertEquals(SamplingController.NORMAL, controller.getProfile());
+        assertEquals(2, controller.getSwitchCount());
+    }
+
+    @Test
+    public void poorAccuracyKeepsWalkersAtTheRegularRate() {
+        controller.reset(timeMs);
+        feed(300, 1.2, 35f, false);
+        assertEquals(SamplingController.NORMAL, controller.getProfile());
+
+        feed(300, 1.2, 5f, false);
+        assertEquals(SamplingController.RELAXED, controller.getProfile());
+    }
+
+    @Test
+    public void alternatingSpeedsDoNotThrash() {
+        controller.reset(timeMs);
+        for (int i = 0; i < 200; i++) {
+            timeMs += 3000;
+            controller.onFix(timeMs, true, i % 2 == 0 ? 5.0 : 3.0, 5f, false);
+        }
+        assertEquals(0, controller.getSwitchCount());
+    }
+}
@@ -0,0 +1,80 @@
+package com.biopeakai.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SplitTrackerTest {
+    @Test
+    public void boundariesAreInterpolatedBetweenFixes() {
+        SplitTracker splits = new SplitTracker(1000);
+        splits.reset(0, 0);
+
+        // 4 m/s with a fix every 30 s (120 m): the line is crossed between 960 m and 1080 m
+        int completed = 0;
+        for (int i = 0; i <= 20; i++) {
+            completed += splits.onFix(i * 120.0, i * 30_000L, 700.0 + i);
+        }
+
+        assertEquals(2, completed);
+        SplitTracker.Split first = splits.getRecords().get(0);
+        assertEquals(1, first.index);
+        assertEquals(1000, first.distance, 1e-6);
+        assertEquals(250_000, first.movingTime);
+        assertEquals(250, first.pace);
+        // Climbing 1 m per 120 m
+        assertEquals(1000 / 120.0, first.elevationDelta, 1e-6);
+
+        SplitTracker.Split second = splits.getRecords().get(1);
+        assertEquals(2, second.index);
+        assertEquals(2000, second.totalDistance, 1e-6);
+        assertEquals(250_000, second.movingTime);
+    }
+
+    @Test
+    public void oneFixCanCompleteSeveralSplits() {
+        SplitTracker splits = new SplitTracker(1000);
+        splits.reset(0, 0);
+
+        splits.onFix(0, 0, Double.NaN);
+        assertEquals(2, splits.onFix(2500, 500_000, Double.NaN));
+        assertEquals(200, splits.getRecords().get(0).pace);
+        assertEquals(200, splits.getRecords().get(1).pace);
+        assertTrue(Double.isNaN(splits.getRecords().get(1).elevationDelta));
+    }
+
+    @Test
+    public void resumedSessionStartsWithAPartialSplit() {
+        SplitTracker splits = new SplitTracker(1000);
+        splits.reset(1600, 480_000);
+
+        splits.onFix(1600, 480_000, Double.NaN);
+        splits.onFix(2000, 600_000, Double.NaN);
+
+        SplitTracker.Split split = splits.getRecords().get(0);
+        assertEquals(2, split.index);
+        assertEquals(400, split.distance, 1e-6);
+        assertEquals(300, split.pace);
+    }
+
+    @Test
+    public void lapsCloseAtTheLastFix() {
+        SplitTracker splits = new SplitTracker(1000);
+        splits.reset(0, 0);
+        assertNull(splits.lap());
+
+        splits.onFix(0, 0, 10.0);
+        splits.onFix(400, 100_000, 14.0);
+        SplitTracker.Split lap = splits.lap();
+        assertEquals(SplitTracker.KIND_LAP, lap.kind);
+        assertEquals(1, lap.index);
+        assertEquals(400, lap.distance, 1e-6);
+        assertEquals(250, lap.pace);
+        assertEquals(4.0, lap.elevationDelta, 1e-6);
+
+        // Nothing covered since: no empty lap
+        assertNull(splits.lap());
+    }
+}
@@ -0,0 +1,114 @@
+package com.biopeakai.performance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrackingCoreTest {
+    private static final double METERS_PER_DEG_LAT = 6371008.8 * Math.PI / 180.0;
+
+    @Test
+    public void straightRunAccumulatesDistance() {
+        TrackingCore core = new TrackingCore(new KalmanLocationFilter());
+        core.reset(0, 0);
+
+        // 3 m/s due north for 400 s: 1200 m
+        for (int i = 0; i <= 400; i++) {
+            double latitude = -23.0 + (3.0 * i) / METERS_PER_DEG_LAT;
+            assertTrue(core.process(latitude, -46.0, 5f, 1_000_000L + i * 1000L));
+        }
+
+        assertEquals(1200, core.getTotalDistance(), 30);
+    }
+
+    @Test
+    public void rejectedFixesCreditNoDistance() {
+        TrackingCore core = new TrackingCore(new KalmanLocationFilter());
+        core.reset(100, 0);
+
+        assertTrue(core.process(-23.0, -46.0, 5f, 1000));
+        assertFalse(core.process(-23.001, -46.0, 80f, 2000));
+        assertEquals(LocationFilter.REJECT_ACCURACY, core.getFilter().getRejectReason());
+        assertEquals(0, core.getDistanceIncrement(), 0);
+        assertEquals(100, core.getTotalDistance(), 0);
+    }
+
+    @Test
+    public void stopsArePausedAndLeftOutOfMovingTime() {
+        TrackingCore core = new TrackingCore(new KalmanLocationFilter());
+        core.reset(0, 0);
+
+        long t = 1_000_000L;
+        double latitude = -23.0;
+        // Run 300 s, stand 120 s at a crossing, run another 300 s
+        for (int i = 0; i < 300; i++, t += 1000) {
+            latitude += 3.0 / METERS_PER_DEG_LAT;
+            core.process(latitude, -46.0, 5f, t);
+        }
+        assertFalse(core.isPaused());
+        int pauses = 0;
+        for (int i = 0; i < 120; i++, t += 1000) {
+            core.process(latitude, -46.0, 5f, t);
+            if (core.hasPauseChanged()) pauses++;
+        }
+        assertTrue(core.isPaused());
+        for (int i = 0; i < 300; i++, t += 1000) {
+            latitude += 3.0 / METERS_PER_DEG_LAT;
+            core.process(latitude, -46.0, 5f, t);
+            if (core.hasPauseChanged()) pauses++;
+        }
+        assertFalse(core.isPaused());
+        assertEquals(2, pauses);
+
+        // 600 s of running; the filter needs a few seconds to notice each stop and start
+        assertEquals(600_000, core.getMovingTimeMs(), 15_000);
+    }
+
+    @Test
+    public void currentPaceFollowsASpeedUpWhileTheAverageLags() {
+        TrackingCore core = new TrackingCore(new KalmanLocationFilter());
+        core.reset(0, 0);
+
+        long t = 1_000_000L;
+        double latitude = -23.0;
+        for (int i = 0; i < 600; i++, t += 1000) {
+            latitude += 2.5 / METERS_PER_DEG_LAT; // 6:40 /km
+            core.process(latitude, -46.0, 5f, t);
+        }
+        assertEquals(400, core.getCurrentPace(), 15);
+        for (int i = 0; i < 300; i++, t += 1000) {
+            latitude += 4.0 / METERS_PER_DEG_LAT; // 4:10 /km
+            core.process(latitude, -46.0, 5f, t);
+        }
+        assertEquals(250, core.getCurrentPace(), 10);
+        assertTrue(core.getMovingPace() > 320);
+    }
+
+    @Test
+    public void rollingPaceWindowIsBoundedByDistanceAndTime() {
+        RollingPace pace = new RollingPace(400, 120_000, 256);
+        assertEquals(0, pace.getSecondsPerKm(), 0);
+
+        // 5 m/s: the 400 m window spans 80 s
+        for (int s = 0; s <= 200; s++) {
+            pace.add(s * 1000L, s * 5.0);
+        }
+        assertEquals(400, pace.getSpanMeters(), 5);
+        assertEquals(200, pace.getSecondsPerKm(), 1);
+
+        // 1 m/s: two minutes only cover 120 m
+        pace.reset();
+        for (int s = 0; s <= 300; s++) {
+            pace.add(s * 1000L, s * 1.0);
+        }
+        assertEquals(120, pace.getSpanMeters(), 1);
+        assertEquals(1.0, pace.getSpeed(), 0.01);
+
+        // Moving time corrected backwards: later samples are dropped, then accepted again
+        pace.rewind(290_000);
+        pace.add(291_000, 291.0);
+        assertEquals(1000, pace.getSecondsPerKm(), 10);
+    }
+}
@@ -0,0 +1,116 @@
+package com.biopeakai.performance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+public class TtsResponseDecoderTest {
+    // Chunk sizes the stream is served in, so field boundaries land inside escapes and base64 quartets
+    private static final int[] CHUNKS = {1, 2, 3, 5, 7, 8192};
+
+    /** Hands out at most {@code chunk} bytes per read, like a socket. */
+    private static InputStream chunked(String body, int chunk) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static byte[] decode(String body, int chunk, long contentLength) throws IOException {
+        AudioBuffer audio = TtsResponseDecoder.decode(chunked(body, chunk), contentLength);
+        try {
+            return Arrays.copyOf(audio.array(), audio.length());
+        } finally {
+            audio.release();
+        }
+    }
+
+    private static byte[] bytes(int count) {
+        byte[] data = new byte[count];
+        for (int i = 0; i < count; i++) {
+            data[i] = (byte) (i * 31 + 7);
+        }
+        return data;
+    }
+
+    @Test
+    public void decodesTheAudioAcrossEveryChunkBoundary() throws IOException {
+        // Lengths 1..3 mod 3 cover both padded tails as well as a whole last quartet
+        for (int length : new int[] {1, 2, 3, 4, 5, 6, 20_000}) {
+            byte[] audio = bytes(length);
+            String encoded = Base64.getEncoder().encodeToString(audio);
+            String[] bodies = {
+                "{\"audioContent\":\"" + encoded + "\"}",
+                // Unpadded, with escaped slashes and line breaks, after fields to skip
+                " { \"format\" : \"mp3\", \"meta\": {\"a\": [1, \"}\\\"\"]}, \"audioContent\" : \""
+                        + encoded.replace("=", "").replaceAll("(.{76})", "$1\\\\n").replace("/", "\\/") + "\" }",
+            };
+            for (String body : bodies) {
+                for (int chunk : CHUNKS) {
+                    for (long contentLength : new long[] {-1, 0, body.length()}) {
+                        assertArrayEquals(audio, decode(body, chunk, contentLength));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void urlSafeAlphabetIsAccepted() throws IOException {
+        byte[] audio = bytes(300);
+        String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(audio);
+        assertArrayEquals(audio, decode("{\"audioContent\":\"" + encoded + "\"}", 3, -1));
+    }
+
+    @Test
+    public void badResponsesFailWithAnIOException() {
+        String[][] cases = {
+            {"{\"error\":\"Quota exceeded\"}", "TTS error: Quota exceeded"},
+            {"{\"error\":\"Quota \\u0041\\n\", \"status\": 429}", "TTS error: Quota A\n"},
+            {"{}", "Failed to get audio content"},
+            {"{\"other\":1}", "Failed to get audio content"},
+            {"{\"audioContent\":\"\"}", "Empty audioContent"},
+            {"{\"audioContent\":\"QUJDR\"}", "Truncated base64 in audioContent"},
+            {"{\"audioContent\":\"QU*D\"}", "Invalid base64 character in audioContent: *"},
+            {"{\"audioContent\":\"QUJD", "Unexpected end of TTS response"},
+            {"", "Unexpected end of TTS response"},
+            {"<html>", "Malformed TTS response near '<'"},
+        };
+        for (String[] c : cases) {
+            for (int chunk : CHUNKS) {
+                try {
+                    decode(c[0], chunk, -1);
+                    fail("no error for " + c[0]);
+                } catch (IOException e) {
+                    assertEquals(c[1], e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void failedDecodesReturnTheirBufferToThePool() throws IOException {
+        try {
+            decode("{\"audioContent\":\"QU*D\"}", 8192, -1);
+            fail("no error");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().startsWith("Invalid base64"));
+        }
+        // A leaked reference would make this buffer's release throw, or hand out a live buffer
+        AudioBuffer next = AudioBuffer.obtain();
+        assertEquals(0, next.length());
+        next.release();
+    }
+}
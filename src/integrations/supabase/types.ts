@@ -3185,6 +3185,8 @@ export type Database = {
           current_pace_min_km: number | null
           current_speed_ms: number | null
           deviation_from_target: Json
+          elevation_gain_meters: number | null
+          elevation_loss_meters: number | null
           elevation_meters: number | null
           id: string
           latitude: number | null
@@ -3201,6 +3203,8 @@ export type Database = {
           current_pace_min_km?: number | null
           current_speed_ms?: number | null
           deviation_from_target?: Json
+          elevation_gain_meters?: number | null
+          elevation_loss_meters?: number | null
           elevation_meters?: number | null
           id?: string
           latitude?: number | null
@@ -3217,6 +3221,8 @@ export type Database = {
           current_pace_min_km?: number | null
           current_speed_ms?: number | null
           deviation_from_target?: Json
+          elevation_gain_meters?: number | null
+          elevation_loss_meters?: number | null
           elevation_meters?: number | null
           id?: string
           latitude?: number | null
@@ -5,19 +5,139 @@ export interface LocationUpdateData {
   latitude: number;
   longitude: number;
   accuracy: number;
+  /** Meters; barometer-fused when the device has one, otherwise smoothed GPS altitude */
   altitude?: number;
   speed?: number;
   heading?: number;
   distance: number;
   totalDistance: number;
   timestamp: number;
+  /** Milliseconds spent moving this session, excluding auto-pauses */
+  movingTime: number;
+  /** Seconds per km over roughly the last 400 m; 0 until there is enough distance */
+  currentPace: number;
+  /** Seconds per km since the start, stops included */
+  averagePace: number;
+  /** Seconds per km over moving time */
+  movingPace: number;
+  /** Meters climbed and descended this session, counted with hysteresis so altitude noise adds nothing */
+  elevationGain: number;
+  elevationLoss: number;
+}
+
+export type LocationDeliveryMode = 'immediate' | 'latest' | 'batched';
+
+export interface LocationBatchData {
+  fixes: LocationUpdateData[];
+  /** Distance covered by all fixes in the batch, in meters */
+  distance: number;
+  totalDistance: number;
+}
+
+/**
+ * Interval reps announced by the native coach: each work bout is either workMeters or workSeconds long,
+ * followed by restSeconds of recovery. Only started with a new session, not on a resumed one.
+ */
+export interface IntervalSet {
+  reps: number;
+  workMeters?: number;
+  workSeconds?: number;
+  restSeconds: number;
+}
+
+export type SplitKind = 'km' | 'lap';
+
+export interface SplitData {
+  kind: SplitKind;
+  /** Kilometre number for km splits, lap number for laps (both 1-based) */
+  index: number;
+  /** Meters covered; less than 1000 for the km split in progress when tracking was resumed */
+  distance: number;
+  /** Milliseconds spent moving, excluding auto-pauses; km boundaries are interpolated between fixes */
+  movingTime: number;
+  /** Seconds per km */
+  pace: number;
+  /** Altitude change in meters, end minus start; null when the fixes carried no altitude */
+  elevationDelta: number | null;
+  /** Session distance at the end of the split */
+  totalDistance: number;
+}
+
+export interface SpeechPathStats {
+  count: number;
+  avgLatencyMs: number;
+  maxLatencyMs: number;
+}
+
+export interface SpeechStats {
+  cache: SpeechPathStats;
+  cloud: SpeechPathStats;
+  local: SpeechPathStats;
+  deadlineMisses: number;
+  cloudFailures: number;
+}
+
+export type PerformanceStage =
+  | 'fixToCallback'
+  | 'filter'
+  | 'delivery'
+  | 'ttsRequest'
+  | 'ttsDecode'
+  | 'playerPrepare'
+  | 'cueTotal'
+  | 'upload';
+
+export interface StageLatencyStats {
+  count: number;
+  meanMs: number;
+  /** Percentiles are the upper bound of the histogram bucket they fall in */
+  p50Ms: number;
+  p95Ms: number;
+  p99Ms: number;
+  maxMs: number;
+  /** Counts per bucket; one more entry than bucketBoundsMs (the open-ended last bucket) */
+  buckets: number[];
+}
+
+export interface SchedulerLaneStats {
+  queueDepth: number;
+  maxQueueDepth: number;
+  completed: number;
+  rejected: number;
+  avgWaitMs: number;
+  maxWaitMs: number;
+}
+
+export interface PerformanceStats {
+  /** Start of the measurement window (epoch ms); reset when a new session starts */
+  since: number;
+  bucketBoundsMs: number[];
+  stages: Record<PerformanceStage, StageLatencyStats>;
+  lanes: Record<'cue' | 'interactive' | 'background' | 'synthesis', SchedulerLaneStats>;
+  missedFixes: number;
 }
 
 export interface BioPeakLocationTrackerPlugin {
   startLocationTracking(): Promise<{ success: boolean; message: string }>;
-  stopLocationTracking(): Promise<{ success: boolean; message: string; finalDistance: number }>;
-  getAccumulatedDistance(): Promise<{ distance: number }>;
+  stopLocationTracking(): Promise<{
+    success: boolean;
+    message: string;
+    finalDistance: number;
+    movingTime: number;
+    elevationGain: number;
+    elevationLoss: number;
+  }>;
+  getAccumulatedDistance(): Promise<{
+    distance: number;
+    movingTime: number;
+    elevationGain: number;
+    elevationLoss: number;
+  }>;
   resetDistance(): Promise<{ success: boolean }>;
+  /**
+   * Configures the native coach. The cues come from the goal: a distance or duration goal is announced
+   * when reached, a pace goal raises alerts outside ±15 s/km of the target.
+   */
   configureFeedback(options: {
     sessionId: string;
     trainingGoal?: string;
@@ -25,13 +145,43 @@ export interface BioPeakLocationTrackerPlugin {
     supabaseUrl?: string;
     supabaseAnonKey?: string;
     userToken?: string;
+    targetDistance?: number; // meters
+    targetPace?: number; // min/km
+    targetDuration?: number; // seconds
+    /** Also announce the elapsed time every this many seconds; 0 or missing for none. */
+    timeCueSeconds?: number;
+    intervals?: IntervalSet;
   }): Promise<{ success: boolean }>;
   generateCompletionAudio(): Promise<{ success: boolean; message: string }>;
+  getSpeechStats(): Promise<SpeechStats>;
+  getPerformanceStats(): Promise<PerformanceStats>;
+  /** Dumps the native binary trace ring (fixes, milestones, TTS, uploads) to a file in the app cache. */
+  exportTrace(): Promise<{ path: string; events: number; bytes: number }>;
+  /**
+   * Chooses how fixes reach JS for this session: one event per fix (default), only the latest fix
+   * every intervalMs, or every fix batched into a locationBatch event every intervalMs.
+   */
+  setLocationDelivery(options: {
+    mode: LocationDeliveryMode;
+    intervalMs?: number;
+  }): Promise<{ success: boolean; mode: LocationDeliveryMode; intervalMs: number }>;
+  /** Splits and laps completed this session, in order; cleared by resetDistance. */
+  getSplits(): Promise<{ splits: SplitData[] }>;
+  /** Closes the current lap at the latest fix; the lap arrives as a split event. */
+  markLap(): Promise<{ success: boolean }>;
   cleanup(): Promise<{ success: boolean }>;
   addListener(
     eventName: 'locationUpdate',
     listenerFunc: (data: LocationUpdateData) => void
   ): Promise<PluginListenerHandle>;
+  addListener(
+    eventName: 'locationBatch',
+    listenerFunc: (data: LocationBatchData) => void
+  ): Promise<PluginListenerHandle>;
+  addListener(
+    eventName: 'split',
+    listenerFunc: (data: SplitData) => void
+  ): Promise<PluginListenerHandle>;
   addListener(
     eventName: 'locationError',
     listenerFunc: (data: { error: string }) => void
@@ -41,11 +191,46 @@ export interface BioPeakLocationTrackerPlugin {
 const BioPeakLocationTracker = registerPlugin<BioPeakLocationTrackerPlugin>('BioPeakLocationTracker', {
   web: () => ({
     startLocationTracking: async () => ({ success: false, message: 'Not supported on web' }),
-    stopLocationTracking: async () => ({ success: false, message: 'Not supported on web', finalDistance: 0 }),
-    getAccumulatedDistance: async () => ({ distance: 0 }),
+    stopLocationTracking: async () => ({
+      success: false,
+      message: 'Not supported on web',
+      finalDistance: 0,
+      movingTime: 0,
+      elevationGain: 0,
+      elevationLoss: 0,
+    }),
+    getAccumulatedDistance: async () => ({ distance: 0, movingTime: 0, elevationGain: 0, elevationLoss: 0 }),
     resetDistance: async () => ({ success: false }),
     configureFeedback: async () => ({ success: false }),
     generateCompletionAudio: async () => ({ success: false, message: 'Not supported on web' }),
+    getSpeechStats: async () => {
+      const empty = { count: 0, avgLatencyMs: 0, maxLatencyMs: 0 };
+      return { cache: empty, cloud: empty, local: empty, deadlineMisses: 0, cloudFailures: 0 };
+    },
+    getPerformanceStats: async () => {
+      const stage = { count: 0, meanMs: 0, p50Ms: 0, p95Ms: 0, p99Ms: 0, maxMs: 0, buckets: [0] };
+      const lane = { queueDepth: 0, maxQueueDepth: 0, completed: 0, rejected: 0, avgWaitMs: 0, maxWaitMs: 0 };
+      return {
+        since: 0,
+        bucketBoundsMs: [],
+        stages: {
+          fixToCallback: stage,
+          filter: stage,
+          delivery: stage,
+          ttsRequest: stage,
+          ttsDecode: stage,
+          playerPrepare: stage,
+          cueTotal: stage,
+          upload: stage,
+        },
+        lanes: { cue: lane, interactive: lane, background: lane, synthesis: lane },
+        missedFixes: 0,
+      };
+    },
+    exportTrace: async () => ({ path: '', events: 0, bytes: 0 }),
+    setLocationDelivery: async () => ({ success: false, mode: 'immediate' as LocationDeliveryMode, intervalMs: 0 }),
+    getSplits: async () => ({ splits: [] }),
+    markLap: async () => ({ success: false }),
     cleanup: async () => ({ success: false }),
     addListener: async () => ({ remove: async () => {} }),
   }),
@@ -0,0 +1,4 @@
+-- Running elevation totals from the native tracker at each snapshot
+ALTER TABLE public.performance_snapshots
+ADD COLUMN IF NOT EXISTS elevation_gain_meters NUMERIC,
+ADD COLUMN IF NOT EXISTS elevation_loss_meters NUMERIC;